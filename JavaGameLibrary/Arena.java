@@ -0,0 +1,374 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongFunction;
+
+// Headless AI-vs-AI match runner for Othello and Checkers.
+// Games are spread over a pool of worker threads, each with its own pair of engines. Every opening
+// is played twice with the engines swapping colours, and the openings themselves are a few random
+// moves so deterministic engines still produce different games. Results are reported from the
+// first engine's point of view as wins, draws and losses with an Elo estimate.
+public class Arena {
+    // Ply cap after which an unfinished game is scored as a draw
+    private static final int MAX_PLIES = 400;
+
+    // One side's player: makes a single move (or pass) for the player to move in `position`
+    public interface Engine<P> {
+        void move(P position);
+    }
+
+    // How to set up and score one kind of game
+    public interface Rules<P> {
+        // GameRecord.OTHELLO or GameRecord.CHECKERS
+        int getGameType();
+
+        // A fresh game after a few random opening moves, which are added to `record` unless it is null
+        P newGame(Random random, GameRecord.Builder record);
+
+        // Let `engine` make its move and add it to `record` unless that is null
+        void move(Engine<P> engine, P position, GameRecord.Builder record);
+
+        boolean isOver(P position);
+
+        int getCurrentPlayer(P position);
+
+        // 1 or 2 for the winner, 0 for a draw
+        int getWinner(P position);
+    }
+
+    // Match outcome from the first engine's point of view
+    public static class Result {
+        public final int wins;
+        public final int draws;
+        public final int losses;
+        public final double seconds;
+
+        Result(int wins, int draws, int losses, double seconds) {
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.seconds = seconds;
+        }
+
+        public int games() {
+            return wins + draws + losses;
+        }
+
+        public double score() {
+            return (wins + 0.5 * draws) / games();
+        }
+
+        // Elo difference implied by the score; infinite for a clean sweep
+        public double elo() {
+            return eloOf(score());
+        }
+
+        // Half-width of the 95% confidence interval around elo()
+        public double eloMargin() {
+            double p = score();
+            int n = games();
+            double variance = (wins * (1 - p) * (1 - p) + draws * (0.5 - p) * (0.5 - p) + losses * p * p) / n;
+            double delta = 1.96 * Math.sqrt(variance / n);
+            return (eloOf(Math.min(p + delta, 1)) - eloOf(Math.max(p - delta, 0))) / 2;
+        }
+
+        private static double eloOf(double score) {
+            return -400 * Math.log10(1 / score - 1);
+        }
+
+        public double gamesPerSecond() {
+            return games() / seconds;
+        }
+
+        @Override
+        public String toString() {
+            // A clean sweep has no finite Elo estimate to put a margin on
+            String elo = Double.isInfinite(elo()) ? (elo() > 0 ? "+inf" : "-inf")
+                    : String.format("%+.0f +/- %.0f", elo(), eloMargin());
+            return String.format("+%d =%d -%d  score %.1f%%  Elo %s  %.1f games/s",
+                    wins, draws, losses, 100 * score(), elo, gamesPerSecond());
+        }
+    }
+
+    public static <P> Result play(Rules<P> rules, LongFunction<Engine<P>> first, LongFunction<Engine<P>> second,
+                                  int games, int threads, long seed) throws Exception {
+        return play(rules, first, second, games, threads, seed, null);
+    }
+
+    // Play `games` games between engines built by `first` and `second` on `threads` threads.
+    // Each worker asks the factories for its own engines, passing a seed derived from `seed`.
+    // Every finished game is appended to `records` unless it is null.
+    public static <P> Result play(Rules<P> rules, LongFunction<Engine<P>> first, LongFunction<Engine<P>> second,
+                                  int games, int threads, long seed, GameRecord.Writer records) throws Exception {
+        AtomicInteger nextGame = new AtomicInteger();
+        // Indexed by outcome for the first engine: 0 loss, 1 draw, 2 win
+        AtomicLongArray outcomes = new AtomicLongArray(3);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            Future<?>[] workers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                long workerSeed = seed * 31 + t;
+                workers[t] = executor.submit(() -> {
+                    Engine<P> engineA = first.apply(workerSeed);
+                    Engine<P> engineB = second.apply(~workerSeed);
+                    GameRecord.Builder record = records != null ? new GameRecord.Builder(rules.getGameType()) : null;
+                    for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                        if (record != null) {
+                            record.clear();
+                        }
+                        // Games 2k and 2k + 1 share an opening with colours swapped
+                        P position = rules.newGame(new Random(seed + game / 2), record);
+                        int playerA = game % 2 == 0 ? 1 : 2;
+                        int winner = playGame(rules, position, playerA == 1 ? engineA : engineB, playerA == 1 ? engineB : engineA, record);
+                        outcomes.incrementAndGet(winner == 0 ? 1 : winner == playerA ? 2 : 0);
+                        if (records != null) {
+                            records.append(record.finish(winner));
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Result((int) outcomes.get(2), (int) outcomes.get(1), (int) outcomes.get(0), seconds);
+    }
+
+    private static <P> int playGame(Rules<P> rules, P position, Engine<P> player1, Engine<P> player2,
+                                    GameRecord.Builder record) {
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            if (rules.isOver(position)) {
+                return rules.getWinner(position);
+            }
+            rules.move(rules.getCurrentPlayer(position) == 1 ? player1 : player2, position, record);
+        }
+        return rules.isOver(position) ? rules.getWinner(position) : 0;
+    }
+
+    // Othello with four random opening moves
+    static class OthelloRules implements Rules<OthelloBoard> {
+        @Override
+        public int getGameType() {
+            return GameRecord.OTHELLO;
+        }
+
+        @Override
+        public OthelloBoard newGame(Random random, GameRecord.Builder record) {
+            OthelloBoard board = new OthelloBoard();
+            for (int ply = 0; ply < 4; ply++) {
+                move(position -> playRandom(position, random), board, record);
+            }
+            return board;
+        }
+
+        // The move is whichever square became occupied, or a pass if none did
+        @Override
+        public void move(Engine<OthelloBoard> engine, OthelloBoard board, GameRecord.Builder record) {
+            long before = board.getDiscs(1) | board.getDiscs(2);
+            engine.move(board);
+            if (record != null) {
+                long placed = (board.getDiscs(1) | board.getDiscs(2)) & ~before;
+                record.add(GameRecord.encodeOthello(placed == 0 ? OthelloBoard.PASS : Long.numberOfTrailingZeros(placed)));
+            }
+        }
+
+        @Override
+        public boolean isOver(OthelloBoard board) {
+            return board.isGameOver();
+        }
+
+        @Override
+        public int getCurrentPlayer(OthelloBoard board) {
+            return board.getCurrentPlayer();
+        }
+
+        @Override
+        public int getWinner(OthelloBoard board) {
+            int difference = board.countPieces(1) - board.countPieces(2);
+            return difference > 0 ? 1 : difference < 0 ? 2 : 0;
+        }
+    }
+
+    private static void playRandom(OthelloBoard board, Random random) {
+        long moves = board.legalMoves();
+        if (moves == 0) {
+            board.pass();
+            return;
+        }
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
+        }
+        int square = Long.numberOfTrailingZeros(moves);
+        board.play(square / 8, square % 8);
+    }
+
+    // Othello engines: random, greedy (most flips), or ai[:depth] for a fixed-depth OthelloAI search
+    static LongFunction<Engine<OthelloBoard>> othelloEngine(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "random":
+                return seed -> {
+                    Random random = new Random(seed);
+                    return board -> playRandom(board, random);
+                };
+            case "greedy":
+                return seed -> board -> {
+                    long moves = board.legalMoves();
+                    if (moves == 0) {
+                        board.pass();
+                        return;
+                    }
+                    int player = board.getCurrentPlayer();
+                    int bestSquare = Long.numberOfTrailingZeros(moves);
+                    int bestFlips = -1;
+                    for (; moves != 0; moves &= moves - 1) {
+                        int square = Long.numberOfTrailingZeros(moves);
+                        int flips = Long.bitCount(OthelloBoard.flips(board.getDiscs(player), board.getDiscs(3 - player), square));
+                        if (flips > bestFlips) {
+                            bestFlips = flips;
+                            bestSquare = square;
+                        }
+                    }
+                    board.play(bestSquare / 8, bestSquare % 8);
+                };
+            case "ai":
+                int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : 4;
+                return seed -> {
+                    OthelloAI ai = new OthelloAI(86_400_000L, 4, 1);
+                    return board -> {
+                        int player = board.getCurrentPlayer();
+                        int square = ai.findBestMove(board.getDiscs(player), board.getDiscs(3 - player), player, depth);
+                        if (square == OthelloBoard.PASS) {
+                            board.pass();
+                        } else {
+                            board.play(square / 8, square % 8);
+                        }
+                    };
+                };
+            default:
+                throw new IllegalArgumentException("Unknown Othello engine: " + spec);
+        }
+    }
+
+    // Checkers with two random opening steps
+    static class CheckersRules implements Rules<CheckersBoard> {
+        @Override
+        public int getGameType() {
+            return GameRecord.CHECKERS;
+        }
+
+        @Override
+        public CheckersBoard newGame(Random random, GameRecord.Builder record) {
+            CheckersBoard board = new CheckersBoard();
+            int[] steps = new int[CheckersBoard.MAX_STEPS];
+            for (int ply = 0; ply < 2; ply++) {
+                move(position -> position.makeStep(steps[random.nextInt(position.generateSteps(steps))]), board, record);
+            }
+            return board;
+        }
+
+        // The board's history holds every step the engine made, a whole multi-jump included
+        @Override
+        public void move(Engine<CheckersBoard> engine, CheckersBoard board, GameRecord.Builder record) {
+            int before = board.getHistorySize();
+            engine.move(board);
+            if (record != null) {
+                for (int i = before; i < board.getHistorySize(); i++) {
+                    record.add(GameRecord.encodeCheckers(board.getStep(i)));
+                }
+            }
+        }
+
+        @Override
+        public boolean isOver(CheckersBoard board) {
+            return board.isGameOver();
+        }
+
+        @Override
+        public int getCurrentPlayer(CheckersBoard board) {
+            return board.getCurrentPlayer();
+        }
+
+        @Override
+        public int getWinner(CheckersBoard board) {
+            return board.getWinner();
+        }
+    }
+
+    // Checkers engines: random, heuristic for the capture-first heuristic, or search[:millis[:egdb]] for
+    // CheckersAI, optionally probing the endgame tables in directory `egdb`
+    static LongFunction<Engine<CheckersBoard>> checkersEngine(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "random":
+                return seed -> {
+                    Random random = new Random(seed);
+                    int[] steps = new int[CheckersBoard.MAX_STEPS];
+                    return board -> board.makeStep(steps[random.nextInt(board.generateSteps(steps))]);
+                };
+            case "heuristic":
+                return seed -> {
+                    CheckersHeuristicAI ai = new CheckersHeuristicAI(new Random(seed));
+                    return board -> board.makeStep(ai.determineMove(board));
+                };
+            case "search":
+                long millis = parts.length > 1 ? Long.parseLong(parts[1]) : 100;
+                CheckersEndgameDatabase database = parts.length > 2 ? openEndgameDatabase(parts[2]) : null;
+                return seed -> {
+                    CheckersAI ai = new CheckersAI(millis);
+                    ai.setEndgameDatabase(database);
+                    return board -> board.makeMove(ai.findBestMove(board));
+                };
+            default:
+                throw new IllegalArgumentException("Unknown Checkers engine: " + spec);
+        }
+    }
+
+    private static CheckersEndgameDatabase openEndgameDatabase(String directory) {
+        try {
+            return CheckersEndgameDatabase.open(Paths.get(directory));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Usage: java Arena <othello|checkers> <engineA> <engineB> [games] [threads] [seed] [recordFile]
+    // With a record file every game is appended to it in GameRecord format.
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java Arena <othello|checkers> <engineA> <engineB> [games] [threads] [seed] [recordFile]");
+            System.out.println("  othello engines:  random, greedy, ai[:depth]");
+            System.out.println("  checkers engines: random, heuristic, search[:millis[:egdb]]");
+            return;
+        }
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+        Result result;
+        try (GameRecord.Writer records = args.length > 6 ? new GameRecord.Writer(Paths.get(args[6])) : null) {
+            switch (args[0]) {
+                case "othello":
+                    result = play(new OthelloRules(), othelloEngine(args[1]), othelloEngine(args[2]), games, threads, seed, records);
+                    break;
+                case "checkers":
+                    result = play(new CheckersRules(), checkersEngine(args[1]), checkersEngine(args[2]), games, threads, seed, records);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown game: " + args[0]);
+            }
+        }
+        System.out.println(args[1] + " vs " + args[2] + " (" + games + " games, " + threads + " threads)");
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,126 @@
+import java.awt.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.*;
+
+// Runs AI move searches off the Swing event dispatch thread so the window stays responsive.
+// Searches run one at a time on a dedicated daemon thread. While one runs, a Swing timer refreshes
+// the progress label and enforces the time limit, and the Move Now button asks the search to stop
+// and play the best move it has found so far. Results are handed back on the event dispatch thread.
+// Everything except the search itself must be called from the event dispatch thread.
+public class BackgroundSearch {
+    private static final int PROGRESS_INTERVAL_MS = 100;
+
+    private final ExecutorService executor;
+    private final long timeLimitMillis;
+    private final JLabel progressLabel = new JLabel(" ", SwingConstants.CENTER);
+    private final JButton stopButton = new JButton("Move Now");
+    private final JPanel panel = new JPanel(new BorderLayout());
+    private final Timer progressTimer;
+    private Supplier<String> progress;
+    private Runnable stopper;
+    private long startNanos;
+    // Bumped by discard() so results of abandoned searches are dropped; read by the search thread to
+    // skip searches discarded before they got to run
+    private volatile int generation;
+    private boolean running;
+    private boolean stopRequested;
+
+    // `timeLimitMillis` is a hard cap on every search, on top of any budget the engine keeps itself
+    public BackgroundSearch(String threadName, long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressTimer = new Timer(PROGRESS_INTERVAL_MS, event -> updateProgress());
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(event -> stop());
+        progressLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        panel.add(progressLabel, BorderLayout.CENTER);
+        panel.add(stopButton, BorderLayout.EAST);
+    }
+
+    // Progress label and Move Now button, for the frame to lay out
+    public JPanel getPanel() {
+        return panel;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Run `search` on the background thread and pass its result to `onResult` on the event dispatch thread.
+    // `stop` must make the search return early with its best result so far; `progress` is polled for the label.
+    public <T> void start(Callable<T> search, Runnable stop, Supplier<String> progress, Consumer<T> onResult) {
+        int id = ++generation;
+        this.progress = progress;
+        this.stopper = stop;
+        running = true;
+        stopRequested = false;
+        startNanos = System.nanoTime();
+        stopButton.setEnabled(true);
+        updateProgress();
+        progressTimer.start();
+        executor.submit(() -> {
+            if (id != generation) {
+                return;
+            }
+            try {
+                T result = search.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (finish(id)) {
+                        onResult.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> finish(id));
+            }
+        });
+    }
+
+    // Stop the running search early; its best move so far is still reported. The request is repeated
+    // on every progress tick, since an engine clears its stop flag when its search actually begins.
+    public void stop() {
+        if (running) {
+            stopRequested = true;
+            stopper.run();
+        }
+    }
+
+    // Stop the running search and drop its result, e.g. when the game is reset or closed
+    public void discard() {
+        stop();
+        generation++;
+        finish(generation);
+    }
+
+    // Clear the running state; false when the finished search was discarded
+    private boolean finish(int id) {
+        if (id != generation) {
+            return false;
+        }
+        running = false;
+        progressTimer.stop();
+        stopButton.setEnabled(false);
+        progressLabel.setText(" ");
+        return true;
+    }
+
+    private void updateProgress() {
+        if (!running) {
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        // Keep asking: a stop that arrives before the search has started would otherwise be lost
+        if (stopRequested || elapsedMillis > timeLimitMillis) {
+            stopper.run();
+        }
+        progressLabel.setText(String.format("%s  (%.1f s)", progress.get(), elapsedMillis / 1000.0));
+    }
+}
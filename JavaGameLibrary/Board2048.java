@@ -0,0 +1,286 @@
+import java.util.random.RandomGenerator;
+
+// Headless 4x4 2048 engine. A board is a single long holding sixteen 4-bit tile exponents, 0 for an
+// empty cell and e for a tile of value 2^e; cell (row, col) lives in nibble row * 4 + col, so each row
+// is one 16-bit chunk with column 0 in the low bits. Every possible row is slid once up front into
+// 65,536-entry tables, which turns a move into four table lookups plus a transpose for columns.
+// Like most 2048 engines, two 32768 tiles (exponent 15) do not merge further.
+public class Board2048 {
+    // Directions, in the order of Game2048.Side
+    public static final int NORTH = 0;
+    public static final int SOUTH = 1;
+    public static final int EAST = 2;
+    public static final int WEST = 3;
+
+    public static final int SIZE = 4;
+    public static final int CELLS = SIZE * SIZE;
+
+    private static final long ROW_MASK = 0xffffL;
+    private static final long COLUMN_MASK = 0x000f000f000f000fL;
+
+    // Tables hold result ^ row so a move can apply them with xor. Row moves use the 16-bit deltas,
+    // column moves the same deltas spread out into column layout.
+    private static final char[] ROW_WEST = new char[1 << 16];
+    private static final char[] ROW_EAST = new char[1 << 16];
+    private static final long[] COLUMN_NORTH = new long[1 << 16];
+    private static final long[] COLUMN_SOUTH = new long[1 << 16];
+    // Points scored by sliding a row, which is the same in both directions
+    private static final int[] ROW_SCORE = new int[1 << 16];
+
+    static {
+        int[] line = new int[SIZE];
+        for (int row = 0; row < 1 << 16; row++) {
+            for (int i = 0; i < SIZE; i++) {
+                line[i] = (row >>> (4 * i)) & 0xf;
+            }
+            ROW_SCORE[row] = slide(line);
+            int west = 0;
+            for (int i = 0; i < SIZE; i++) {
+                west |= line[i] << (4 * i);
+            }
+            int reversed = reverseRow(row);
+            for (int i = 0; i < SIZE; i++) {
+                line[i] = (reversed >>> (4 * i)) & 0xf;
+            }
+            slide(line);
+            int east = 0;
+            for (int i = 0; i < SIZE; i++) {
+                east |= line[i] << (4 * i);
+            }
+            east = reverseRow(east);
+            ROW_WEST[row] = (char) (row ^ west);
+            ROW_EAST[row] = (char) (row ^ east);
+            COLUMN_NORTH[row] = unpackColumn(row ^ west);
+            COLUMN_SOUTH[row] = unpackColumn(row ^ east);
+        }
+    }
+
+    private Board2048() {
+    }
+
+    // Slide a line of exponents towards index 0, merging equal pairs once; returns the points scored
+    private static int slide(int[] line) {
+        int score = 0;
+        int target = 0;
+        boolean mergeable = false;
+        for (int i = 0; i < SIZE; i++) {
+            int tile = line[i];
+            if (tile == 0) {
+                continue;
+            }
+            line[i] = 0;
+            if (mergeable && line[target - 1] == tile && tile < 15) {
+                line[target - 1] = tile + 1;
+                score += 1 << (tile + 1);
+                mergeable = false;
+            } else {
+                line[target++] = tile;
+                mergeable = true;
+            }
+        }
+        return score;
+    }
+
+    private static int reverseRow(int row) {
+        return ((row >>> 12) & 0xf) | ((row >>> 4) & 0xf0) | ((row << 4) & 0xf00) | ((row << 12) & 0xf000);
+    }
+
+    // Spread the four nibbles of a row into the first column: nibble i moves to bits 16 * i
+    private static long unpackColumn(int row) {
+        long column = row;
+        return (column | (column << 12) | (column << 24) | (column << 36)) & COLUMN_MASK;
+    }
+
+    // Swap rows and columns, so column c of the board becomes row c
+    public static long transpose(long board) {
+        long a1 = board & 0xf0f00f0ff0f00f0fL;
+        long a2 = board & 0x0000f0f00000f0f0L;
+        long a3 = board & 0x0f0f00000f0f0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xff00ff0000ff00ffL;
+        long b2 = a & 0x00ff00ff00000000L;
+        long b3 = a & 0x00000000ff00ff00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    // The board after sliding in the given direction, without spawning a tile. The result equals
+    // the input when the move is not legal.
+    public static long move(long board, int direction) {
+        switch (direction) {
+            case NORTH: {
+                long t = transpose(board);
+                return board ^ COLUMN_NORTH[(int) (t & ROW_MASK)]
+                        ^ COLUMN_NORTH[(int) ((t >>> 16) & ROW_MASK)] << 4
+                        ^ COLUMN_NORTH[(int) ((t >>> 32) & ROW_MASK)] << 8
+                        ^ COLUMN_NORTH[(int) (t >>> 48)] << 12;
+            }
+            case SOUTH: {
+                long t = transpose(board);
+                return board ^ COLUMN_SOUTH[(int) (t & ROW_MASK)]
+                        ^ COLUMN_SOUTH[(int) ((t >>> 16) & ROW_MASK)] << 4
+                        ^ COLUMN_SOUTH[(int) ((t >>> 32) & ROW_MASK)] << 8
+                        ^ COLUMN_SOUTH[(int) (t >>> 48)] << 12;
+            }
+            case EAST:
+                return board ^ (long) ROW_EAST[(int) (board & ROW_MASK)]
+                        ^ (long) ROW_EAST[(int) ((board >>> 16) & ROW_MASK)] << 16
+                        ^ (long) ROW_EAST[(int) ((board >>> 32) & ROW_MASK)] << 32
+                        ^ (long) ROW_EAST[(int) (board >>> 48)] << 48;
+            case WEST:
+                return board ^ (long) ROW_WEST[(int) (board & ROW_MASK)]
+                        ^ (long) ROW_WEST[(int) ((board >>> 16) & ROW_MASK)] << 16
+                        ^ (long) ROW_WEST[(int) ((board >>> 32) & ROW_MASK)] << 32
+                        ^ (long) ROW_WEST[(int) (board >>> 48)] << 48;
+            default:
+                throw new IllegalArgumentException("Unknown direction " + direction);
+        }
+    }
+
+    // Points scored by sliding in the given direction: the sum of the values of all merged tiles
+    public static int score(long board, int direction) {
+        long lines = direction == NORTH || direction == SOUTH ? transpose(board) : board;
+        return ROW_SCORE[(int) (lines & ROW_MASK)] + ROW_SCORE[(int) ((lines >>> 16) & ROW_MASK)]
+                + ROW_SCORE[(int) ((lines >>> 32) & ROW_MASK)] + ROW_SCORE[(int) (lines >>> 48)];
+    }
+
+    public static boolean canMove(long board, int direction) {
+        return move(board, direction) != board;
+    }
+
+    public static boolean isGameOver(long board) {
+        if (countEmpty(board) > 0) {
+            return false;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            if (canMove(board, direction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int countEmpty(long board) {
+        // Fold each nibble down to its low bit, set when the nibble is non-zero
+        long occupied = board | (board >>> 1);
+        occupied |= occupied >>> 2;
+        return CELLS - Long.bitCount(occupied & 0x1111111111111111L);
+    }
+
+    public static int getExponent(long board, int row, int col) {
+        return (int) (board >>> (4 * (row * SIZE + col))) & 0xf;
+    }
+
+    // Tile value at the cell, 0 when empty
+    public static int getTile(long board, int row, int col) {
+        int exponent = getExponent(board, row, col);
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    public static long setExponent(long board, int row, int col, int exponent) {
+        int shift = 4 * (row * SIZE + col);
+        return (board & ~(0xfL << shift)) | ((long) exponent << shift);
+    }
+
+    public static int maxExponent(long board) {
+        int max = 0;
+        for (; board != 0; board >>>= 4) {
+            max = Math.max(max, (int) (board & 0xf));
+        }
+        return max;
+    }
+
+    public static int maxTile(long board) {
+        int exponent = maxExponent(board);
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    // Place a 2 (90%) or a 4 (10%) on a random empty cell; the board is returned unchanged when full
+    public static long spawnTile(long board, RandomGenerator random) {
+        int empty = countEmpty(board);
+        if (empty == 0) {
+            return board;
+        }
+        int target = random.nextInt(empty);
+        long exponent = random.nextInt(10) < 9 ? 1 : 2;
+        for (int shift = 0; ; shift += 4) {
+            if (((board >>> shift) & 0xf) == 0 && target-- == 0) {
+                return board | (exponent << shift);
+            }
+        }
+    }
+
+    // A new game: an empty board with two spawned tiles
+    public static long newGame(RandomGenerator random) {
+        return spawnTile(spawnTile(0, random), random);
+    }
+
+    // Packed board from a grid of tile values; values must be 0 or powers of two up to 32768
+    public static long fromTiles(int[][] tiles) {
+        long board = 0;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                int value = tiles[row][col];
+                if (value != 0) {
+                    board = setExponent(board, row, col, Integer.numberOfTrailingZeros(value));
+                }
+            }
+        }
+        return board;
+    }
+
+    public static int[][] toTiles(long board) {
+        int[][] tiles = new int[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                tiles[row][col] = getTile(board, row, col);
+            }
+        }
+        return tiles;
+    }
+
+    public static String toString(long board) {
+        StringBuilder builder = new StringBuilder();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                builder.append(String.format("%6d", getTile(board, row, col)));
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    // Move throughput benchmark: slides a corpus of random mid-game boards in every direction and
+    // reports the best moves per second over several rounds.
+    // Usage: java Board2048 [seed]
+    public static void main(String[] args) {
+        java.util.Random random = new java.util.Random(args.length > 0 ? Long.parseLong(args[0]) : 7);
+        long[] corpus = new long[4096];
+        for (int i = 0; i < corpus.length; i++) {
+            long board = newGame(random);
+            int moves = random.nextInt(300);
+            for (int m = 0; m < moves; m++) {
+                long next = move(board, random.nextInt(4));
+                if (next != board) {
+                    board = spawnTile(next, random);
+                }
+                if (isGameOver(board)) {
+                    board = newGame(random);
+                }
+            }
+            corpus[i] = board;
+        }
+        long sink = 0;
+        double best = 0;
+        for (int round = 0; round < 15; round++) {
+            long start = System.nanoTime();
+            for (int pass = 0; pass < 500; pass++) {
+                for (long board : corpus) {
+                    sink += move(board, NORTH) ^ move(board, SOUTH) ^ move(board, EAST) ^ move(board, WEST);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            best = Math.max(best, 500.0 * corpus.length * 4 / (elapsed / 1e9));
+        }
+        System.out.printf("%.1f million moves/s (checksum %d)%n", best / 1e6, sink);
+    }
+}
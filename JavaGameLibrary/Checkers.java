@@ -1,15 +1,18 @@
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import javax.swing.*;
 
 public class Checkers extends JFrame {
     // Constants for board and tile size
     private final int TILE_SIZE = 50;
     private final int GRID_SIZE = 8;
-    private final Piece[][] board = new Piece[GRID_SIZE][GRID_SIZE];
+    private final CheckersBoard board = new CheckersBoard();
     private final JButton[][] tiles = new JButton[GRID_SIZE][GRID_SIZE];
     // Game state variables
     private int[] pieceToMove = null;
@@ -18,154 +21,59 @@ public class Checkers extends JFrame {
     private int player2Score = 0;
     private int currentPlayer = 1;
     private boolean isSinglePlayer = false;
+    // Steps taken back with Undo, most recent last; the board's own history holds the steps played.
+    // Both are a single int per step, so even very long games cost a few bytes per ply.
+    private int[] redoSteps = new int[64];
+    private int redoSize = 0;
     // Score and player labels
     private final JLabel currentPlayerLabel = new JLabel("Player 1's Turn", SwingConstants.CENTER);
     private final JLabel player1Label = new JLabel("Player 1: 0", SwingConstants.CENTER);
     private final JLabel player2Label = new JLabel("Player 2: 0", SwingConstants.CENTER);
+    // The AI thinks on a background thread, capped by -Dcheckers.ai.maxmillis=<ms>
+    private final BackgroundSearch search = new BackgroundSearch("Checkers AI", Long.getLong("checkers.ai.maxmillis", 30000));
+    // Thinking time per AI move, hash table size and search threads, override with
+    // -Dcheckers.ai.millis=<ms>, -Dcheckers.ai.hashmb=<megabytes> and -Dcheckers.ai.threads=<count>
+    private final CheckersAI ai = new CheckersAI(Long.getLong("checkers.ai.millis", 100),
+            Integer.getInteger("checkers.ai.hashmb", 16),
+            Integer.getInteger("checkers.ai.threads", Runtime.getRuntime().availableProcessors()));
+    // Finished games are appended to -Dcheckers.record=<file> in GameRecord format when it is set
+    private final String recordFile = System.getProperty("checkers.record");
     
     public Checkers() {
+        ai.setEndgameDatabase(loadEndgameDatabase());
         showHomeScreen();
     }
 
-    // Piece object class to manage player piece ownership & king status
-    private static class Piece {
-        private final int player;
-        private boolean isKing;
-
-        public Piece(int player, boolean isKing) {
-            this.player = player;
-            this.isKing = isKing;
-        }
-        public int getPlayer() {
-            return player;
-        }
-        public boolean isKing() {
-            return isKing;
-        }
-        public void makeKing() {
-            isKing = true;
-        }
-    }
-    
     // Setup player pieces on the board
     private void initializeBoard() {
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if ((row + col) % 2 == 1) {
-                    if (row < 3) {
-                        board[row][col] = new Piece(2, false); 
-                    } else if (row >= GRID_SIZE - 3) {
-                        board[row][col] = new Piece(1, false); 
-                    }
-                }
-            }
-        }
+        board.reset();
     }
 
-    // Move piece on the game board and clear any captured pieces
-    private void movePiece(int[] pos1, int[] pos2) {
-        if (Math.abs(pos2[0] - pos1[0]) == 2 && Math.abs(pos2[1] - pos1[1]) == 2) {
-            int midRow = (pos1[0] + pos2[0]) / 2;
-            int midCol = (pos1[1] + pos2[1]) / 2;
-            board[midRow][midCol] = null; 
+    // Update the UI to reflect a step made on the board, including a captured piece and a crowning
+    private void updateUI(int step, int captured) {
+        if (captured >= 0) {
+            updateTile(CheckersBoard.rowOf(captured), CheckersBoard.colOf(captured));
         }
-        board[pos2[0]][pos2[1]] = board[pos1[0]][pos1[1]];
-        board[pos1[0]][pos1[1]] = null;    
+        updateTile(CheckersBoard.rowOf(CheckersBoard.fromOf(step)), CheckersBoard.colOf(CheckersBoard.fromOf(step)));
+        updateTile(CheckersBoard.rowOf(CheckersBoard.toOf(step)), CheckersBoard.colOf(CheckersBoard.toOf(step)));
     }
 
-    // Update the UI to reflect the move made on the board
-    private void updateUI(int[] pos1, int[] pos2) {
-        if (Math.abs(pos2[0] - pos1[0]) == 2 && Math.abs(pos2[1] - pos1[1]) == 2) {
-            int midRow = (pos1[0] + pos2[0]) / 2;
-            int midCol = (pos1[1] + pos2[1]) / 2;
-            tiles[midRow][midCol].setText(""); 
-        }
-        tiles[pos2[0]][pos2[1]].setText(board[pos2[0]][pos2[1]].isKing() ? "♔" : "●"); 
-        tiles[pos2[0]][pos2[1]].setForeground(currentPlayer == 1 ? Color.RED : Color.ORANGE);
-        tiles[pos1[0]][pos1[1]].setText("");
-    }
-
-    // Check if the player has any extra moves available after a capture
-    private boolean checkExtraMoves(int[] pos) {
-        int row = pos[0];
-        int col = pos[1];
-        Piece piece = board[row][col];
-        
-        if (piece == null) return false; // No piece, no extra move 
-        int[][] directions;
-        if (piece.isKing()) {
-            directions = new int[][]{{-2, -2}, {-2, 2}, {2, -2}, {2, 2}}; // Kings move both directions
-        } else if (piece.getPlayer() == 1) {
-            directions = new int[][]{{-2, -2}, {-2, 2}}; // Player 1 moves upwards
+    // Show the piece on a tile, if any
+    private void updateTile(int row, int col) {
+        int owner = board.getOwner(row, col);
+        if (owner == 0) {
+            tiles[row][col].setText("");
         } else {
-            directions = new int[][]{{2, -2}, {2, 2}}; // Player 2 moves downwards
+            tiles[row][col].setText(board.isKing(row, col) ? "♔" : "●");
+            tiles[row][col].setForeground(owner == 1 ? Color.RED : Color.ORANGE);
         }
-        // Check for possible jumps in all directions
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-            int midRow = row + dir[0] / 2;
-            int midCol = col + dir[1] / 2;
-            if (isWithinBounds(newRow, newCol)) {
-                if (board[newRow][newCol] == null) { // Destination is empty
-                    Piece midPiece = board[midRow][midCol];
-                    if (midPiece != null && midPiece.getPlayer() != piece.getPlayer()) {
-                        return true; // Valid jump available
-                    }
-                }
-            }
-        }
-        return false;
     }
-    
+
     // Validate the move based on game rules
     private boolean isValidMove(int[] pos1, int[] pos2) {
-        int row1 = pos1[0];
-        int col1 = pos1[1];
-        int row2 = pos2[0];
-        int col2 = pos2[1];
-        Piece piece = board[row1][col1];
-        // Check if the move is within bounds
-        if (!isWithinBounds(row2, col2)) {
-            return false;
-        }
-        // Check if the piece is exist
-        if (board[row1][col1] == null) {
-            return false;
-        }
-        // Check if the piece belongs to the current player
-        if (piece.getPlayer() != currentPlayer) {
-            return false;
-        }
-        // Check if the destination is empty
-        if (board[row2][col2] != null) {
-            return false;
-        }
-        // Check if the move is a valid diagonal move
-        if (!piece.isKing() && currentPlayer == 1 && row1 < row2) {
-            return false;
-        } else if (!piece.isKing() && currentPlayer == 2 && row1 > row2) {
-            return false;
-        }
-        // Check if the move is a simple one-space move
-        if (Math.abs(row2 - row1) == 1 && Math.abs(col2 - col1) == 1) {
-            return true;
-        }
-        // Check if the move is a capture move
-        if (Math.abs(row2 - row1) == 2 && Math.abs(col2 - col1) == 2) {
-            int midRow = (row1 + row2) / 2;
-            int midCol = (col1 + col2) / 2;
-            Piece midPiece = board[midRow][midCol];
-            if (midPiece != null && midPiece.getPlayer() != piece.getPlayer()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    // Check if the position is within the bounds of the board
-    private boolean isWithinBounds(int row, int col) {
-        return row >= 0 && row < GRID_SIZE && col >= 0 && col < GRID_SIZE;
+        int from = CheckersBoard.squareAt(pos1[0], pos1[1]);
+        int to = CheckersBoard.squareAt(pos2[0], pos2[1]);
+        return from >= 0 && to >= 0 && board.isValidStep(CheckersBoard.step(from, to));
     }
 
     // Swap the current player & update the UI accordingly
@@ -175,264 +83,96 @@ public class Checkers extends JFrame {
         currentPlayerLabel.setForeground(currentPlayer == 1 ? Color.RED : Color.ORANGE);
     }
 
-    // Activate king status if a piece reaches the opposite end of the board
-    private void activateKing(int row, int col) {
-        Piece piece = board[row][col];
-        if (piece.getPlayer() == 1 && row == 0) {
-            piece.makeKing();
-            tiles[row][col].setText("♔");
-        } else if (piece.getPlayer() == 2 && row == GRID_SIZE - 1) {
-            piece.makeKing();
-            tiles[row][col].setText("♔");
+    // Make a step and update the game state accordingly; returns true when the game is over.
+    // The board keeps the turn with the same player while a capturing piece can jump again.
+    private boolean handleStep(int step) {
+        int captured = board.makeStep(step);
+        updateUI(step, captured);
+        if (checkGameState()) {
+            return true;
+        }
+        if (board.getCurrentPlayer() != currentPlayer) {
+            swapPlayer();
         }
+        return false;
     }
 
-    // Handle player moves and update the game state accordingly
+    // Handle player moves and update the game state accordingly; a new move ends any redo line
     private void handlePlayerMove(int[] pos1, int[] pos2) {
-        movePiece(pos1, pos2);
-        updateUI(pos1, pos2);
-        if (checkGameState()) {
-            return;
-        }
-        // Only check for extra moves if the move is a capture
-        if (Math.abs(pos2[0] - pos1[0]) == 2 && Math.abs(pos2[1] - pos1[1]) == 2) {
-            if (!checkExtraMoves(pos2)) {
-                swapPlayer(); 
-            }    
-        } else {
-            swapPlayer(); 
-        }
-        activateKing(pos2[0], pos2[1]);
+        redoSize = 0;
+        handleStep(CheckersBoard.step(CheckersBoard.squareAt(pos1[0], pos1[1]), CheckersBoard.squareAt(pos2[0], pos2[1])));
     }
 
-    // Handle AI moves and update the game state accordingly
+    // Handle AI moves off the event dispatch thread. The search works on a copy of the board, so a
+    // reset or takeback meanwhile never shares the window's board with the search thread.
     private void aiMove() {
-        int[][] bestMove = determineMove();
-        if (bestMove != null) {
-            int[] pos1 = bestMove[0];
-            int[] pos2 = bestMove[1];
-            movePiece(pos1, pos2);
-            updateUI(pos1, pos2);
-            if (checkGameState()) {
-                return;
-            }
-            // Only check for extra moves if the move is a capture
-            if (Math.abs(pos2[0] - pos1[0]) == 2 && Math.abs(pos2[1] - pos1[1]) == 2) {
-                if (checkExtraMoves(pos2)) {
-                    Timer timer = new Timer(2500, event -> aiMove());
-                    timer.setRepeats(false); 
-                    timer.start();
-                } else {
-                    swapPlayer(); // If no extra moves, switch player
-                }    
-            } else {
-                swapPlayer(); // If not a capture, switch player
-            }
-            activateKing(pos2[0], pos2[1]);
-        }
-    }
-    // Create a deep copy of the board to simulate moves without affecting the original board
-    private Piece[][] copyBoard(Piece[][] board) {
-        Piece[][] newBoard = new Piece[GRID_SIZE][GRID_SIZE];
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col] != null) {
-                    newBoard[row][col] = new Piece(board[row][col].getPlayer(), board[row][col].isKing());
-                }
-            }
+        // A takeback while the AI's move was pending may have handed the turn back to the player
+        if (search.isRunning() || board.getCurrentPlayer() != 2 || board.isGameOver()) {
+            return;
         }
-        return newBoard;
+        CheckersBoard position = board.copy();
+        search.start(() -> determineMove(position), ai::stop,
+                () -> String.format("Thinking: depth %d, %,d nodes", ai.getCompletedDepth(), ai.getNodes()),
+                this::playAiMove);
     }
 
-    // Algorithm to determine and score the best move for the AI (with basic heuristics)
-    // The AI will prioritize capturing moves, then protecting vulnerable pieces, and finally normal moves
-    // If no other options exist, it will select a random vulnerable move
-    private int[][] determineMove() {
-        ArrayList<int[][]> captureMoves = new ArrayList<>();
-        ArrayList<int[][]> normalMoves = new ArrayList<>();
-        ArrayList<int[][]> vulnerableMoves = new ArrayList<>();
-        ArrayList<int[][]> protectiveMoves = new ArrayList<>();
-
-        getAllPossibleMoves(2, captureMoves, normalMoves, vulnerableMoves, protectiveMoves);
-
-        // Check if there are any capture moves available, if so, prioritize them
-        if (!captureMoves.isEmpty()) return captureMoves.get(new Random().nextInt(captureMoves.size()));
-    
-        // Try to protect vulnerable pieces if possible
-        if (!protectiveMoves.isEmpty()) return protectiveMoves.get(new Random().nextInt(protectiveMoves.size()));
-
-        // If no capture moves, check for normal moves, prioitizing non-vulnerable ones
-        ArrayList<int[][]> safeMoves = new ArrayList<>();
-        for (int[][] move : normalMoves) {
-            if (!isMoveVulnerable(move)) {
-                safeMoves.add(move);
-            }
-        }
-        if (!safeMoves.isEmpty()) return safeMoves.get(new Random().nextInt(safeMoves.size()));
-        
-        // If no safe moves, return a random vulnerable move (since the only available moves are vulnerable)
-        return vulnerableMoves.get(new Random().nextInt(vulnerableMoves.size()));
-    }
-    
-    // Get all possible moves for the current player, including capture, normal, vulnerable, and protective moves
-    private void getAllPossibleMoves(int player, ArrayList<int[][]> captureMoves, 
-            ArrayList<int[][]> normalMoves, ArrayList<int[][]> vulnerableMoves, ArrayList<int[][]> protectiveMoves) {
-        protectiveMoves.addAll(getVulnerableComputerPieces()); 
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getPlayer() == player) {
-                    addPossibleMovesForPiece(piece, row, col, captureMoves, normalMoves, vulnerableMoves);
-                }
-            }
-        }        
-    }
-     
-    // Add possible moves for a piece based on its type and position
-    private void addPossibleMovesForPiece(Piece piece, int row, int col, 
-                                      ArrayList<int[][]> captureMoves, 
-                                      ArrayList<int[][]> normalMoves, 
-                                      ArrayList<int[][]> vulnerableMoves) {
-        int[][] directions;
-        if (piece.isKing()) {
-            directions = new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}}; // Kings move both directions
-        } else if (piece.getPlayer() == 1) {
-            directions = new int[][]{{-1, -1}, {-1, 1}}; // Player 1 moves upwards
-        } else {
-            directions = new int[][]{{1, -1}, {1, 1}}; // Player 2 moves downwards
+    // Play the AI's move, a whole multi-jump at once, and update the game state accordingly
+    private void playAiMove(long move) {
+        if (move == CheckersAI.NO_MOVE) {
+            return;
         }
-        
-        for (int[] dir : directions) { 
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-
-            if (isValidMove(new int[]{row, col}, new int[]{newRow, newCol})) {
-                int[][] move = new int[][]{{row, col}, {newRow, newCol}};
-                if (isMoveVulnerable(move)) {
-                    vulnerableMoves.add(move);
-                } else {
-                    normalMoves.add(move);
-                }
-            }
-
-            int jumpRow = row + (dir[0] * 2);
-            int jumpCol = col + (dir[1] * 2);
- 
-            if (isValidMove(new int[]{row, col}, new int[]{jumpRow, jumpCol})) {
-                captureMoves.add(new int[][]{{row, col}, {jumpRow, jumpCol}});
+        redoSize = 0;
+        for (int i = 0; i < CheckersBoard.lengthOf(move); i++) {
+            if (handleStep(CheckersBoard.stepOf(move, i))) {
+                return;
             }
         }
     }
 
-    // Simulate a move on a copy of the board to check for vulnerabilities
-    private void simulateMove(Piece[][] boardCopy, int[] pos1, int[] pos2) {
-        Piece movingPiece = boardCopy[pos1[0]][pos1[1]];
-        boardCopy[pos1[0]][pos1[1]] = null;
-        boardCopy[pos2[0]][pos2[1]] = movingPiece;
-        // Check if a piece is captured, remove it from the copied board
-        if (Math.abs(pos2[0] - pos1[0]) == 2 && Math.abs(pos2[1] - pos1[1]) == 2) {
-            int midRow = (pos1[0] + pos2[0]) / 2;
-            int midCol = (pos1[1] + pos2[1]) / 2;
-            boardCopy[midRow][midCol] = null; 
+    // Take back one turn, a whole multi-jump included; against the AI, take back its reply as well
+    // so the player is to move again. Only the tiles the undone steps touched are redrawn.
+    private void undoTurn() {
+        if (search.isRunning() || board.getHistorySize() == 0) {
+            return;
         }
-        // Check if the piece becomes a king
-        if (movingPiece.getPlayer() == 1 && pos2[0] == 0) {
-            movingPiece.makeKing(); 
-        } else if (movingPiece.getPlayer() == 2 && pos2[0] == GRID_SIZE - 1) {
-            movingPiece.makeKing(); 
+        do {
+            int step = board.getStep(board.getHistorySize() - 1);
+            board.unmakeStep();
+            if (redoSize == redoSteps.length) {
+                redoSteps = Arrays.copyOf(redoSteps, 2 * redoSize);
+            }
+            redoSteps[redoSize++] = step;
+            updateUI(step, CheckersBoard.jumpedSquare(step));
+        } while (board.getHistorySize() > 0
+                && (board.getJumpingSquare() >= 0 || (isSinglePlayer && board.getCurrentPlayer() != 1)));
+        pieceToMove = null;
+        placeToMove = null;
+        if (board.getCurrentPlayer() != currentPlayer) {
+            swapPlayer();
         }
     }
 
-    // Check if the move makes a piece vulnerable to being captured 
-    private boolean isMoveVulnerable(int[][] move) {
-        int newRow = move[1][0];
-        int newCol = move[1][1];
-    
-        Piece[][] boardCopy = copyBoard(board);
-        simulateMove(boardCopy, move[0], move[1]);
-    
-        // Check if the moved piece is vulnerable in its new location
-        if (isPositionVulnerable(boardCopy, newRow, newCol)) {
-            return true;
+    // Replay the turn taken back last, the AI's reply included against the AI
+    private void redoTurn() {
+        if (search.isRunning() || redoSize == 0) {
+            return;
         }
-    
-        // Check if any other computer piece are vulnerable
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                Piece piece = boardCopy[row][col];
-                if (piece != null && piece.getPlayer() == 2) {
-                    if (isPositionVulnerable(boardCopy, row, col)) {
-                        return true;
-                    }
-                }
+        do {
+            if (handleStep(redoSteps[--redoSize])) {
+                return;
             }
+        } while (redoSize > 0 && (board.getJumpingSquare() >= 0 || (isSinglePlayer && board.getCurrentPlayer() != 1)));
+        pieceToMove = null;
+        placeToMove = null;
+        if (isSinglePlayer && board.getCurrentPlayer() == 2) {
+            aiMove();
         }
-    
-        return false;
     }
 
-    // Check if a position is vulnerable to being captured by the opponent
-    private boolean isPositionVulnerable(Piece[][] boardState, int row, int col) {
-        for (int[] dir : new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}}) {
-            int attackerRow = row + dir[0];
-            int attackerCol = col + dir[1];
-            int landingRow = row - dir[0];
-            int landingCol = col - dir[1];
-    
-            if (isWithinBounds(attackerRow, attackerCol) && isWithinBounds(landingRow, landingCol)) {
-                Piece attacker = boardState[attackerRow][attackerCol];
-                if (attacker != null && attacker.getPlayer() == 1 && boardState[landingRow][landingCol] == null) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-    
-    // Get list of moves for vulnerable pieces of the computer player that can escape capture
-    private ArrayList<int[][]> getVulnerableComputerPieces() {
-        ArrayList<int[][]> vulnerablePiecesWithEscapeMoves = new ArrayList<>();
-    
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getPlayer() == 2) { // Computer's pieces
-                    int[][] directions = piece.isKing()
-                        ? new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}}
-                        : new int[][]{{1, -1}, {1, 1}}; // Player 2 moves down
-    
-                    boolean isVulnerable = false;
-    
-                    // Check if any opponent can capture this piece
-                    for (int[] dir : new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}}) {
-                        int attackerRow = row + dir[0];
-                        int attackerCol = col + dir[1];
-                        int landingRow = row - dir[0];
-                        int landingCol = col - dir[1];
-    
-                        if (isWithinBounds(attackerRow, attackerCol) && isWithinBounds(landingRow, landingCol)) {
-                            Piece attacker = board[attackerRow][attackerCol];
-                            if (attacker != null && attacker.getPlayer() == 1 && board[landingRow][landingCol] == null) {
-                                isVulnerable = true;
-                            }
-                        }
-                    }
-    
-                    if (isVulnerable) {
-                        for (int[] dir : directions) {
-                            int newRow = row + dir[0];
-                            int newCol = col + dir[1];
-                            int[][] move = new int[][]{{row, col}, {newRow, newCol}};
-                            if (isValidMove(new int[]{row, col}, new int[]{newRow, newCol}) && !isMoveVulnerable(move)) {
-                                vulnerablePiecesWithEscapeMoves.add(move);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    
-        return vulnerablePiecesWithEscapeMoves;
+    // Search for the AI's move: iterative-deepening alpha-beta within the time limit.
+    // Captures are mandatory and a multi-jump is chosen as a whole.
+    private long determineMove(CheckersBoard position) {
+        return ai.findBestMove(position);
     }
     
     // Create the GUI for the game
@@ -475,13 +215,12 @@ public class Checkers extends JFrame {
                     tile.setBackground(Color.BLACK);
                     tile.addActionListener(new CellInputListener(row, col));
                 }
-                if (board[row][col] != null) {
-                    Piece piece = board[row][col];
+                if (board.getOwner(row, col) != 0) {
                     tile.setText("●"); 
                     tile.setFont(new Font("Arial Unicode MS", Font.BOLD, 30));
                     tile.setHorizontalAlignment(JTextField.CENTER);
                     tile.setVerticalAlignment(JTextField.CENTER);
-                    tile.setForeground(piece.getPlayer() == 1 ? Color.RED : Color.ORANGE);
+                    tile.setForeground(board.getOwner(row, col) == 1 ? Color.RED : Color.ORANGE);
                 }
                 tiles[row][col] = tile;
                 boardPanel.add(tile);
@@ -490,7 +229,21 @@ public class Checkers extends JFrame {
         // Add panels to the main frame
         frame.add(scorePanel, BorderLayout.NORTH);
         frame.add(boardPanel, BorderLayout.CENTER);
-        frame.add(currentPlayerLabel, BorderLayout.SOUTH);
+        // Turn label, with the AI progress and Move Now button under it in single-player mode
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(currentPlayerLabel, BorderLayout.CENTER);
+        JPanel historyPanel = new JPanel(new GridLayout(1, 2));
+        JButton undoButton = new JButton("Undo");
+        undoButton.addActionListener(event -> undoTurn());
+        JButton redoButton = new JButton("Redo");
+        redoButton.addActionListener(event -> redoTurn());
+        historyPanel.add(undoButton);
+        historyPanel.add(redoButton);
+        statusPanel.add(historyPanel, BorderLayout.EAST);
+        if (isSinglePlayer) {
+            statusPanel.add(search.getPanel(), BorderLayout.SOUTH);
+        }
+        frame.add(statusPanel, BorderLayout.SOUTH);
         frame.setVisible(true);
     }
 
@@ -526,8 +279,12 @@ public class Checkers extends JFrame {
         }
         @Override
         public void actionPerformed(ActionEvent e) {
+            // The board belongs to the AI while it is thinking
+            if (isSinglePlayer && (currentPlayer == 2 || search.isRunning())) {
+                return;
+            }
             // If the player clicks on their own piece, allow re-selection
-            if (board[row][col] != null && board[row][col].getPlayer() == currentPlayer) {
+            if (board.getOwner(row, col) == currentPlayer) {
                 pieceToMove = new int[]{row, col}; // Update selected piece
                 placeToMove = null; // Reset destination selection
                 System.out.println("Selected piece to move: " + row + ", " + col);
@@ -553,25 +310,18 @@ public class Checkers extends JFrame {
 
     }
 
-    // Check the game state to determine if a player has won or if the game is over
+    // Check the game state to determine if a player has won or if the game is over.
+    // A player loses when they run out of pieces or cannot move.
     private boolean checkGameState() {  
-        int player1Pieces = 0;
-        int player2Pieces = 0;
-        // Count the number of pieces each player has remaining
-        for (Piece[] row : board) {
-            for (Piece piece : row) {
-                if (piece != null && piece.getPlayer() == 1) {
-                    player1Pieces++;    
-                } else if (piece != null && piece.getPlayer() == 2) {
-                    player2Pieces++;
-                }
-            }
+        int winner = board.getWinner();
+        if (winner != 0) {
+            saveGameRecord(winner);
         }
-        if (player1Pieces == 0) {
+        if (winner == 2) {
             player2Score++;
             handleGameOver("Player 2 wins!");
             return true;
-        } else if (player2Pieces == 0) {
+        } else if (winner == 1) {
             player1Score++;
             handleGameOver("Player 1 wins!");
             return true; 
@@ -579,6 +329,22 @@ public class Checkers extends JFrame {
         return false; 
     }
 
+    // The board's history holds every step since the start, so it is the whole game
+    private void saveGameRecord(int winner) {
+        if (recordFile == null) {
+            return;
+        }
+        GameRecord.Builder record = new GameRecord.Builder(GameRecord.CHECKERS);
+        for (int i = 0; i < board.getHistorySize(); i++) {
+            record.add(GameRecord.encodeCheckers(board.getStep(i)));
+        }
+        try {
+            GameRecord.append(Paths.get(recordFile), record.finish(winner));
+        } catch (IOException e) {
+            System.out.println("Could not save game record to " + recordFile + ": " + e.getMessage());
+        }
+    }
+
     // Display game over message and prompt for replay or the main menu
     private void handleGameOver(String message) {
         SwingUtilities.invokeLater(() -> {
@@ -605,14 +371,9 @@ public class Checkers extends JFrame {
 
     // Reset the game state, pieces, board, UI, and update scores
     private void resetGame() {
+        search.discard();
         currentPlayer = 1;
-
-        // Clear the board array
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                board[row][col] = null; // Clear the board
-            }
-        }
+        redoSize = 0;
 
         // Reinitialize the board with pieces
         initializeBoard();
@@ -624,22 +385,27 @@ public class Checkers extends JFrame {
         // Update the UI tiles
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                if ((row + col) % 2 == 1) {
-                    if (board[row][col] != null) {
-                        Piece piece = board[row][col];
-                        tiles[row][col].setText("●");
-                        tiles[row][col].setForeground(piece.getPlayer() == 1 ? Color.RED : Color.ORANGE);
-                    } else {
-                        tiles[row][col].setText("");
-                    }
-                } else {
-                    tiles[row][col].setText(""); // Ensure non-playable tiles are cleared
-                }
+                updateTile(row, col);
             }
         }
     }
     
+    // Endgame tables built by CheckersEndgameDatabase, read from -Dcheckers.egdb=<directory>
+    // (default checkers-egdb); the AI simply searches without them
+    private static CheckersEndgameDatabase loadEndgameDatabase() {
+        Path path = Paths.get(System.getProperty("checkers.egdb", "checkers-egdb"));
+        if (!Files.isDirectory(path)) {
+            return null;
+        }
+        try {
+            return CheckersEndgameDatabase.open(path);
+        } catch (IOException e) {
+            System.out.println("Could not load endgame database " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
     public static void main(String[] args) {
         SwingUtilities.invokeLater(Checkers::new);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,526 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Checkers opponent using iterative-deepening negamax with alpha-beta pruning.
+// Moves are whole turns, so a multi-jump is searched as one move, and captures are mandatory.
+// At the horizon the search keeps resolving captures so positions are never scored halfway
+// through an exchange. Each call to findBestMove searches until its wall-clock budget runs out
+// and returns the best move of the deepest iteration that produced a result.
+// With an endgame database attached, positions it covers are scored from the tables instead of searched.
+// Results are cached in a Zobrist-keyed transposition table that is kept across moves of the same game.
+public class CheckersAI {
+    public static final long NO_MOVE = -1;
+
+    private static final int MAX_DEPTH = 64;
+    private static final int MAX_PLY = 128;
+    private static final int INFINITY = 1_000_000;
+    private static final int WIN_SCORE = 100_000;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    // Database wins rank below wins the search proved itself, but far above any evaluation
+    private static final int DATABASE_WIN_SCORE = WIN_SCORE / 2;
+    // Scores at least this far from zero depend on the ply they were found at
+    private static final int DISTANCE_SCORE = DATABASE_WIN_SCORE - 2 * MAX_PLY;
+
+    private static final int MAN_VALUE = 100;
+    private static final int KING_VALUE = 150;
+    // Men on their own back row keep the opponent from crowning
+    private static final int BACK_ROW_BONUS = 8;
+    private static final int CENTRE_BONUS = 5;
+    private static final int[] BACK_ROWS = {0, 0xf0000000, 0x0000000f}; // indexed by player
+    private static final int CENTRE = 0x00666600; // the middle two squares of rows 2 to 5
+    // ADVANCE_BONUS[player][row] rewards men for getting closer to the crowning row
+    private static final int[][] ADVANCE_BONUS = {
+        {},
+        {0, 14, 12, 9, 6, 3, 1, 0},
+        {0, 1, 3, 6, 9, 12, 14, 0}
+    };
+
+    private final long timeBudgetMillis;
+    private final CheckersTranspositionTable table; // null when hashing is disabled
+    private CheckersEndgameDatabase endgameDatabase;
+    private final Worker[] workers;
+    private final ForkJoinPool pool; // helper threads, null when searching on one thread
+    private volatile boolean stopped;
+    private long deadline;
+
+    public CheckersAI(long timeBudgetMillis) {
+        this(timeBudgetMillis, 16);
+    }
+
+    // hashMegabytes bounds the transposition table; 0 searches without one
+    public CheckersAI(long timeBudgetMillis, int hashMegabytes) {
+        this(timeBudgetMillis, hashMegabytes, 1);
+    }
+
+    // With more than one thread the search runs lazy SMP: helper threads search copies of the root
+    // at staggered depths and only share results through the transposition table.
+    // A single thread searches on the caller's thread and is fully deterministic for a fixed depth.
+    public CheckersAI(long timeBudgetMillis, int hashMegabytes, int threads) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.table = hashMegabytes > 0 ? new CheckersTranspositionTable(hashMegabytes) : null;
+        this.workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+        this.pool = workers.length > 1 ? new ForkJoinPool(workers.length - 1) : null;
+    }
+
+    // Release the helper threads; the AI must not be used afterwards
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // The transposition table; null when hashing is disabled
+    public CheckersTranspositionTable getTable() {
+        return table;
+    }
+
+    // Use `database` for positions with few pieces, or stop using one when null
+    public void setEndgameDatabase(CheckersEndgameDatabase database) {
+        this.endgameDatabase = database;
+    }
+
+    // Ask a running search to finish now with the best move found so far; safe to call from any thread
+    public void stop() {
+        stopped = true;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    // Nodes searched by all threads during the last call to findBestMove.
+    // Can be polled while a search runs, the count is then only approximate.
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    // Transposition table probes, hits and stores that evicted a different position, summed over all
+    // threads during the last call to findBestMove; only exact once the search has returned
+    public long getTableProbes() {
+        long probes = 0;
+        for (Worker worker : workers) {
+            probes += worker.tableProbes;
+        }
+        return probes;
+    }
+
+    public long getTableHits() {
+        long hits = 0;
+        for (Worker worker : workers) {
+            hits += worker.tableHits;
+        }
+        return hits;
+    }
+
+    public long getTableCollisions() {
+        long collisions = 0;
+        for (Worker worker : workers) {
+            collisions += worker.tableCollisions;
+        }
+        return collisions;
+    }
+
+    public int getCompletedDepth() {
+        return workers[0].completedDepth;
+    }
+
+    // Score of the deepest completed iteration of the last search, from the mover's point of view
+    public int getBestScore() {
+        return workers[0].bestScore;
+    }
+
+    public long findBestMove(CheckersBoard board) {
+        return findBestMove(board, MAX_DEPTH);
+    }
+
+    // Best move for the player to move, or NO_MOVE if there is none.
+    // The main search plays moves on `board` itself and leaves it as it was; helpers search copies.
+    public long findBestMove(CheckersBoard board, int depthLimit) {
+        deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        stopped = false;
+        if (table != null) {
+            table.newSearch();
+        }
+        for (Worker worker : workers) {
+            worker.reset();
+        }
+        if (pool == null) {
+            return workers[0].search(board, depthLimit);
+        }
+        ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            CheckersBoard position = board.copy();
+            helpers[i - 1] = pool.submit(() -> helper.search(position, depthLimit));
+        }
+        // The calling thread runs the main search; its result is the one played
+        long bestMove = workers[0].search(board, depthLimit);
+        stopped = true;
+        for (ForkJoinTask<?> helper : helpers) {
+            helper.join();
+        }
+        return bestMove;
+    }
+
+    // One search thread with its own scratch buffers, killer moves and counters
+    private class Worker {
+        private final int id;
+        private final long[][] moveBuffer = new long[MAX_PLY][CheckersBoard.MAX_MOVES];
+        private final int[][] orderBuffer = new int[MAX_PLY][CheckersBoard.MAX_MOVES];
+        // Two quiet moves per ply that recently caused a cutoff, tried early in sibling positions
+        private final long[][] killers = new long[MAX_PLY][2];
+        private long nodes;
+        // Transposition table statistics, kept per thread so the threads never share a counter
+        private long tableProbes;
+        private long tableHits;
+        private long tableCollisions;
+        private int completedDepth;
+        private int bestScore;
+        private boolean aborted;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void reset() {
+            nodes = 0;
+            tableProbes = 0;
+            tableHits = 0;
+            tableCollisions = 0;
+            completedDepth = 0;
+            bestScore = 0;
+            aborted = false;
+            for (long[] pair : killers) {
+                pair[0] = NO_MOVE;
+                pair[1] = NO_MOVE;
+            }
+        }
+
+        long search(CheckersBoard board, int depthLimit) {
+            long[] moves = moveBuffer[0];
+            int count = board.generateMoves(moves);
+            if (count == 0) {
+                return NO_MOVE;
+            }
+            orderMoves(board, moves, count, orderBuffer[0], 0, probeMove(board.getHash()));
+            long bestMove = moves[0];
+            if (count == 1) {
+                return bestMove;
+            }
+
+            // Odd helpers run one ply ahead of the main thread so the threads spread over depths
+            for (int depth = 1 + (id & 1); depth <= Math.min(depthLimit, MAX_DEPTH); depth++) {
+                int alpha = -INFINITY;
+                long iterationBest = NO_MOVE;
+                for (int i = 0; i < count; i++) {
+                    board.makeMove(moves[i]);
+                    int score = -negamax(board, depth - 1, -INFINITY, -alpha, 1);
+                    board.unmakeMove(moves[i]);
+                    if (aborted) {
+                        break;
+                    }
+                    if (score > alpha) {
+                        alpha = score;
+                        iterationBest = moves[i];
+                    }
+                }
+                // A move that finished searching is trustworthy even if the iteration itself did not
+                if (iterationBest != NO_MOVE) {
+                    bestMove = iterationBest;
+                    promote(moves, count, bestMove);
+                }
+                if (aborted) {
+                    break;
+                }
+                completedDepth = depth;
+                bestScore = alpha;
+                if (table != null && table.store(board.getHash(), depth, toTable(alpha, 0), CheckersTranspositionTable.EXACT, bestMove)) {
+                    tableCollisions++;
+                }
+                if (Math.abs(alpha) >= WIN_SCORE - MAX_PLY) {
+                    break; // the game result is already proven
+                }
+                if (inDatabase(board)) {
+                    break; // every move leads into the tables, so one ply already gives exact scores
+                }
+            }
+            return bestMove;
+        }
+
+        private int negamax(CheckersBoard board, int depth, int alpha, int beta, int ply) {
+            if ((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && (stopped || System.nanoTime() > deadline)) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (inDatabase(board)) {
+                int value = endgameDatabase.probe(board);
+                if (value != CheckersEndgameDatabase.UNKNOWN) {
+                    int distance = CheckersEndgameDatabase.distanceOf(value);
+                    if (CheckersEndgameDatabase.isWin(value)) {
+                        return DATABASE_WIN_SCORE - ply - distance;
+                    }
+                    return CheckersEndgameDatabase.isLoss(value) ? -DATABASE_WIN_SCORE + ply + distance : 0;
+                }
+            }
+            if (depth <= 0 || ply >= MAX_PLY - 1) {
+                return quiesce(board, alpha, beta, ply);
+            }
+            long hash = board.getHash();
+            long hashMove = NO_MOVE;
+            if (table != null) {
+                long entry = table.probe(hash);
+                tableProbes++;
+                if (entry != 0) {
+                    tableHits++;
+                    hashMove = CheckersTranspositionTable.moveOf(entry);
+                    if (CheckersTranspositionTable.depthOf(entry) >= depth) {
+                        int score = fromTable(CheckersTranspositionTable.scoreOf(entry), ply);
+                        int bound = CheckersTranspositionTable.boundOf(entry);
+                        if (bound == CheckersTranspositionTable.EXACT
+                                || (bound == CheckersTranspositionTable.LOWER_BOUND && score >= beta)
+                                || (bound == CheckersTranspositionTable.UPPER_BOUND && score <= alpha)) {
+                            return score;
+                        }
+                    }
+                }
+            }
+            long[] moves = moveBuffer[ply];
+            int count = board.generateMoves(moves);
+            if (count == 0) {
+                return -WIN_SCORE + ply; // no move left loses, and later losses are better
+            }
+            orderMoves(board, moves, count, orderBuffer[ply], ply, hashMove);
+            int originalAlpha = alpha;
+            long bestMove = moves[0];
+            int best = -INFINITY;
+            for (int i = 0; i < count; i++) {
+                long move = moves[i];
+                board.makeMove(move);
+                int score = -negamax(board, depth - 1, -beta, -alpha, ply + 1);
+                board.unmakeMove(move);
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            if (!CheckersBoard.isCapture(move) && killers[ply][0] != move) {
+                                killers[ply][1] = killers[ply][0];
+                                killers[ply][0] = move;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (table != null && !aborted) {
+                int bound = best >= beta ? CheckersTranspositionTable.LOWER_BOUND
+                        : best > originalAlpha ? CheckersTranspositionTable.EXACT : CheckersTranspositionTable.UPPER_BOUND;
+                if (table.store(hash, depth, toTable(best, ply), bound, bestMove)) {
+                    tableCollisions++;
+                }
+            }
+            return best;
+        }
+
+        // Past the horizon only captures are searched; since they are mandatory there is no standing pat
+        // while one is available
+        private int quiesce(CheckersBoard board, int alpha, int beta, int ply) {
+            if ((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && (stopped || System.nanoTime() > deadline)) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            int player = board.getCurrentPlayer();
+            if (board.getJumpers(player) == 0 || ply >= MAX_PLY - 1) {
+                if (board.getMovers(player) == 0 && board.getJumpers(player) == 0) {
+                    return -WIN_SCORE + ply;
+                }
+                return evaluate(board);
+            }
+            long[] moves = moveBuffer[ply];
+            int count = board.generateMoves(moves);
+            int best = -INFINITY;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                int score = -quiesce(board, -beta, -alpha, ply + 1);
+                board.unmakeMove(moves[i]);
+                if (score > best) {
+                    best = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        // The hash move first, then longer captures, killer moves, crowning moves and moves toward the centre
+        private void orderMoves(CheckersBoard board, long[] moves, int count, int[] keys, int ply, long hashMove) {
+            int kings = board.getKings();
+            int player = board.getCurrentPlayer();
+            for (int i = 0; i < count; i++) {
+                long move = moves[i];
+                int to = CheckersBoard.moveTo(move);
+                int key;
+                if (move == hashMove) {
+                    key = 10_000;
+                } else if (CheckersBoard.isCapture(move)) {
+                    key = 1000 + 10 * CheckersBoard.lengthOf(move);
+                } else if (move == killers[ply][0]) {
+                    key = 900;
+                } else if (move == killers[ply][1]) {
+                    key = 800;
+                } else {
+                    key = 0;
+                }
+                boolean man = (kings & (1 << CheckersBoard.moveFrom(move))) == 0;
+                if (man && CheckersBoard.rowOf(to) == (player == 1 ? 0 : CheckersBoard.GRID_SIZE - 1)) {
+                    key += 500;
+                }
+                if ((CENTRE & (1 << to)) != 0) {
+                    key += 5;
+                }
+                // Insertion sort, best key first; stable so generation order breaks ties
+                int j = i;
+                while (j > 0 && keys[j - 1] < key) {
+                    moves[j] = moves[j - 1];
+                    keys[j] = keys[j - 1];
+                    j--;
+                }
+                moves[j] = move;
+                keys[j] = key;
+            }
+        }
+    }
+
+    private long probeMove(long hash) {
+        if (table == null) {
+            return NO_MOVE;
+        }
+        long entry = table.probe(hash);
+        return entry == 0 ? NO_MOVE : CheckersTranspositionTable.moveOf(entry);
+    }
+
+    // Win and loss scores count plies from the root; the table stores them relative to the position instead
+    private static int toTable(int score, int ply) {
+        return score >= DISTANCE_SCORE ? score + ply : score <= -DISTANCE_SCORE ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= DISTANCE_SCORE ? score - ply : score <= -DISTANCE_SCORE ? score + ply : score;
+    }
+
+    private boolean inDatabase(CheckersBoard board) {
+        return endgameDatabase != null
+                && Integer.bitCount(board.getPieces(1) | board.getPieces(2)) <= endgameDatabase.getMaxPieces();
+    }
+
+    // Move `move` to the front of the list, keeping the rest in order
+    private static void promote(long[] moves, int count, long move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    // Static evaluation from the point of view of the player to move
+    public static int evaluate(CheckersBoard board) {
+        int player = board.getCurrentPlayer();
+        int own = sideScore(board, player);
+        int opp = sideScore(board, 3 - player);
+        int score = own - opp;
+        // When ahead, trading pieces down makes the advantage easier to convert
+        int pieces = Integer.bitCount(board.getPieces(1) | board.getPieces(2));
+        if (own != opp) {
+            score += Integer.signum(own - opp) * (24 - pieces) * 2;
+        }
+        return score;
+    }
+
+    private static int sideScore(CheckersBoard board, int player) {
+        int pieces = board.getPieces(player);
+        int kings = pieces & board.getKings();
+        int men = pieces & ~kings;
+        int score = MAN_VALUE * Integer.bitCount(men) + KING_VALUE * Integer.bitCount(kings);
+        // The back row only needs guarding while the opponent still has men to crown
+        if ((board.getPieces(3 - player) & ~board.getKings()) != 0) {
+            score += BACK_ROW_BONUS * Integer.bitCount(men & BACK_ROWS[player]);
+        }
+        score += CENTRE_BONUS * Integer.bitCount(pieces & CENTRE);
+        for (int rest = men; rest != 0; rest &= rest - 1) {
+            score += ADVANCE_BONUS[player][CheckersBoard.rowOf(Integer.numberOfTrailingZeros(rest))];
+        }
+        return score;
+    }
+
+    // Report time-to-depth, nodes per second, speedup and transposition table use of the parallel
+    // search for 1..N threads.
+    // Usage: java CheckersAI [maxThreads] [depth] [positions]
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 14;
+        int positions = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        // Midgame positions reached by random play from a fixed seed, each at the start of a turn
+        Random random = new Random(42);
+        int[] steps = new int[CheckersBoard.MAX_STEPS];
+        CheckersBoard[] boards = new CheckersBoard[positions];
+        for (int i = 0; i < positions; i++) {
+            CheckersBoard board;
+            do {
+                board = new CheckersBoard();
+                for (int ply = 0; ply < 12 + 2 * i && !board.isGameOver(); ply++) {
+                    board.makeStep(steps[random.nextInt(board.generateSteps(steps))]);
+                }
+            } while (board.isGameOver() || board.getJumpingSquare() >= 0);
+            boards[i] = board.copy();
+        }
+
+        // Warm up once so the first row does not pay for JIT compilation
+        CheckersAI warmup = new CheckersAI(86_400_000L, 64, 1);
+        warmup.findBestMove(boards[0], depth);
+
+        double baseline = 0;
+        System.out.println("threads  seconds     nodes  nodes/s  speedup  TT hits  collisions");
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            long nodes = 0;
+            long probes = 0;
+            long hits = 0;
+            long collisions = 0;
+            long start = System.nanoTime();
+            for (CheckersBoard board : boards) {
+                CheckersAI ai = new CheckersAI(86_400_000L, 64, threads);
+                ai.findBestMove(board, depth);
+                nodes += ai.getNodes();
+                probes += ai.getTableProbes();
+                hits += ai.getTableHits();
+                collisions += ai.getTableCollisions();
+                ai.shutdown();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (threads == 1) {
+                baseline = seconds;
+            }
+            System.out.printf("%7d  %7.2f  %9d  %7.0f  %7.2f  %6.1f%%  %10d%n", threads, seconds, nodes, nodes / seconds,
+                    baseline / seconds, probes == 0 ? 0 : 100.0 * hits / probes, collisions);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Micro-benchmark for Checkers move validation, move generation and the heuristic AI on a corpus
+// of mid-game positions reached by random play. Reports the best nanoseconds per operation over
+// several rounds after a warm-up phase, and the bytes the benchmark thread allocated per operation
+// during the measured rounds.
+public class CheckersBenchmark {
+    private static final int CORPUS_SIZE = 4096;
+    private static final int WARMUP_PASSES = 100;
+    private static final int MEASURE_ROUNDS = 10;
+    private static final int PASSES_PER_ROUND = 20;
+
+    // Results are folded into this field so the JIT cannot drop the measured work
+    private static long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 7);
+        CheckersBoard[] boards = new CheckersBoard[CORPUS_SIZE];
+        // A mix of legal steps and arbitrary square pairs, like clicks on the board
+        int[] candidates = new int[CORPUS_SIZE];
+        int[] steps = new int[CheckersBoard.MAX_STEPS];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            boards[i] = randomPosition(random);
+            int count = boards[i].generateSteps(steps);
+            candidates[i] = random.nextBoolean() ? steps[random.nextInt(count)]
+                    : CheckersBoard.step(random.nextInt(CheckersBoard.SQUARES), random.nextInt(CheckersBoard.SQUARES));
+        }
+        long[] moves = new long[CheckersBoard.MAX_MOVES];
+        CheckersHeuristicAI ai = new CheckersHeuristicAI(new Random(1));
+
+        report("isValidStep", () -> {
+            for (int i = 0; i < CORPUS_SIZE; i++) {
+                sink += boards[i].isValidStep(candidates[i]) ? 1 : 0;
+            }
+        });
+        report("generateSteps", () -> {
+            for (CheckersBoard board : boards) {
+                sink += board.generateSteps(steps);
+            }
+        });
+        report("generateMoves", () -> {
+            for (CheckersBoard board : boards) {
+                sink += board.generateMoves(moves);
+            }
+        });
+        report("heuristic determineMove", () -> {
+            for (CheckersBoard board : boards) {
+                sink += ai.determineMove(board);
+            }
+        });
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void report(String name, Runnable pass) {
+        for (int warmup = 0; warmup < WARMUP_PASSES; warmup++) {
+            pass.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int repeat = 0; repeat < PASSES_PER_ROUND; repeat++) {
+                pass.run();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        double operations = (double) PASSES_PER_ROUND * CORPUS_SIZE;
+        System.out.printf("%-28s %10.1f ns/op %10.2f bytes/op%n",
+                name, best / operations, allocated / (operations * MEASURE_ROUNDS));
+    }
+
+    // A position with at least one legal step for the side to move, reached by random play
+    private static CheckersBoard randomPosition(Random random) {
+        int[] steps = new int[CheckersBoard.MAX_STEPS];
+        while (true) {
+            CheckersBoard board = new CheckersBoard();
+            int plies = 6 + random.nextInt(40);
+            for (int ply = 0; ply < plies && !board.isGameOver(); ply++) {
+                board.makeStep(steps[random.nextInt(board.generateSteps(steps))]);
+            }
+            if (!board.isGameOver()) {
+                // Start from a clean history so the corpus holds plain positions
+                return board.copy();
+            }
+        }
+    }
+}
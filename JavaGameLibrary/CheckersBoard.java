@@ -0,0 +1,626 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Checkers position used by the Checkers frame and its AI.
+// Only the 32 dark squares are playable; square index is row * 4 + col / 2, and each side's pieces
+// and all kings are kept as 32-bit masks, so move generation works on whole sets of squares with shifts.
+// Player 1 starts at the bottom and moves up.
+// A step is one diagonal move or one single jump. Jumps are mandatory, and after a jump the same piece
+// keeps the turn while it can jump again; a man that is crowned ends the turn. A move is a whole turn,
+// i.e. a simple move or a complete capture sequence, for the AI to search as a unit.
+public class CheckersBoard {
+    public static final int GRID_SIZE = 8;
+    public static final int SQUARES = 32;
+    // Most steps a position can have: 12 pieces with 4 directions each
+    public static final int MAX_STEPS = 48;
+    // Room for the moves of any reachable position, counting each multi-jump branch separately
+    public static final int MAX_MOVES = 128;
+    // Longest possible capture sequence: every jump takes one of the opponent's 12 pieces
+    private static final int MAX_JUMPS = 12;
+
+    // Diagonal directions; the opposite of `dir` is 3 - dir
+    public static final int UP_LEFT = 0;
+    public static final int UP_RIGHT = 1;
+    public static final int DOWN_LEFT = 2;
+    public static final int DOWN_RIGHT = 3;
+    private static final int EVEN_ROWS = 0x0f0f0f0f;
+    private static final int ODD_ROWS = 0xf0f0f0f0;
+    private static final int LEFT_EDGE = 0x10101010;  // column 0, only on odd rows
+    private static final int RIGHT_EDGE = 0x08080808; // column 7, only on even rows
+    private static final int[] DIR_ROWS = {-1, -1, 1, 1};
+    private static final int[] DIR_COLS = {-1, 1, -1, 1};
+    // NEIGHBOURS[square][dir] is the adjacent square, JUMPS[square][dir] the landing square two away; -1 off the board
+    private static final int[][] NEIGHBOURS = new int[SQUARES][4];
+    private static final int[][] JUMPS = new int[SQUARES][4];
+
+    static {
+        for (int square = 0; square < SQUARES; square++) {
+            int row = rowOf(square);
+            int col = colOf(square);
+            for (int dir = 0; dir < 4; dir++) {
+                NEIGHBOURS[square][dir] = squareAt(row + DIR_ROWS[dir], col + DIR_COLS[dir]);
+                JUMPS[square][dir] = squareAt(row + 2 * DIR_ROWS[dir], col + 2 * DIR_COLS[dir]);
+            }
+        }
+    }
+
+    // Zobrist keys per piece kind and square (player 1 man, player 1 king, player 2 man, player 2 king),
+    // one for player 2 to move, and one per square for a multi-jump in progress there.
+    // The seed is fixed so hashes stay stable between runs.
+    private static final long[][] ZOBRIST = new long[4][SQUARES];
+    private static final long[] ZOBRIST_JUMPING = new long[SQUARES + 1]; // indexed by square + 1
+    private static final long ZOBRIST_SIDE;
+
+    static {
+        Random random = new Random(0xc4ec4e55L);
+        for (int square = 0; square < SQUARES; square++) {
+            for (int kind = 0; kind < 4; kind++) {
+                ZOBRIST[kind][square] = random.nextLong();
+            }
+            ZOBRIST_JUMPING[square + 1] = random.nextLong();
+        }
+        ZOBRIST_SIDE = random.nextLong();
+    }
+
+    private int player1;
+    private int player2;
+    private int kings;
+    private int currentPlayer = 1;
+    private int jumpingSquare = -1; // piece that must continue a multi-jump, or -1
+    private long hash; // Zobrist hash, kept up to date by makeStep and unmakeStep
+    // Undo records of the steps made so far, see makeStep for the layout
+    private int[] history = new int[64];
+    private int historySize = 0;
+    // Per-jump step buffers for generateMoves, created on first use
+    private int[][] sequenceSteps;
+    // Attack masks indexed by player, see updateAttacks; every change to the position marks them stale
+    // and they are rebuilt from the piece masks the first time one is asked for afterwards
+    private final int[] attacks = new int[3];
+    private final int[] landings = new int[3];
+    private final int[] hanging = new int[3];
+    private boolean attacksValid = false;
+
+    public CheckersBoard() {
+        reset();
+    }
+
+    public CheckersBoard(int player1, int player2, int kings, int currentPlayer) {
+        setPosition(player1, player2, kings, currentPlayer);
+    }
+
+    // Replace the position with the given one and clear the history, so one board can be reused
+    // for many unrelated positions
+    public void setPosition(int player1, int player2, int kings, int currentPlayer) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.kings = kings;
+        this.currentPlayer = currentPlayer;
+        jumpingSquare = -1;
+        historySize = 0;
+        attacksValid = false;
+        hash = hash(player1, player2, kings, currentPlayer, -1);
+    }
+
+    // Player 2 fills the top three rows and player 1 the bottom three
+    public void reset() {
+        player2 = 0x00000fff;
+        player1 = 0xfff00000;
+        kings = 0;
+        currentPlayer = 1;
+        jumpingSquare = -1;
+        historySize = 0;
+        attacksValid = false;
+        hash = hash(player1, player2, kings, currentPlayer, -1);
+    }
+
+    // Copy of the position; the copy starts with an empty history
+    public CheckersBoard copy() {
+        CheckersBoard board = new CheckersBoard(player1, player2, kings, currentPlayer);
+        board.jumpingSquare = jumpingSquare;
+        board.hash = hash;
+        return board;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    // Full Zobrist hash of a position, used to seed the incremental updates in makeStep
+    public static long hash(int player1, int player2, int kings, int currentPlayer, int jumpingSquare) {
+        long h = (currentPlayer == 2 ? ZOBRIST_SIDE : 0) ^ ZOBRIST_JUMPING[jumpingSquare + 1];
+        for (int rest = player1 | player2; rest != 0; rest &= rest - 1) {
+            int square = Integer.numberOfTrailingZeros(rest);
+            h ^= ZOBRIST[kindOf((player2 & (1 << square)) != 0 ? 2 : 1, (kings & (1 << square)) != 0)][square];
+        }
+        return h;
+    }
+
+    // Index into ZOBRIST for a man or king of `player`
+    private static int kindOf(int player, boolean king) {
+        return 2 * (player - 1) + (king ? 1 : 0);
+    }
+
+    public static int rowOf(int square) {
+        return square >> 2;
+    }
+
+    public static int colOf(int square) {
+        int row = square >> 2;
+        return 2 * (square & 3) + ((row & 1) == 0 ? 1 : 0);
+    }
+
+    // Square index of a dark square, or -1 for light squares and positions off the board
+    public static int squareAt(int row, int col) {
+        if (row < 0 || row >= GRID_SIZE || col < 0 || col >= GRID_SIZE || (row + col) % 2 == 0) {
+            return -1;
+        }
+        return row * 4 + col / 2;
+    }
+
+    // Square next to `square` in direction `dir` (0 up-left, 1 up-right, 2 down-left, 3 down-right), or -1.
+    // The opposite direction of `dir` is 3 - dir.
+    public static int neighbour(int square, int dir) {
+        return NEIGHBOURS[square][dir];
+    }
+
+    // Steps are encoded as from | to << 5
+    public static int step(int from, int to) {
+        return from | (to << 5);
+    }
+
+    public static int fromOf(int step) {
+        return step & 31;
+    }
+
+    public static int toOf(int step) {
+        return (step >> 5) & 31;
+    }
+
+    public static boolean isJump(int step) {
+        return Math.abs(rowOf(toOf(step)) - rowOf(fromOf(step))) == 2;
+    }
+
+    // Square of the piece a jump takes, or -1 for a simple move
+    public static int jumpedSquare(int step) {
+        int from = fromOf(step);
+        int to = toOf(step);
+        return isJump(step) ? squareAt((rowOf(from) + rowOf(to)) / 2, (colOf(from) + colOf(to)) / 2) : -1;
+    }
+
+    public int getPieces(int player) {
+        return player == 1 ? player1 : player2;
+    }
+
+    public int getKings() {
+        return kings;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    // Square whose piece is in the middle of a multi-jump, or -1
+    public int getJumpingSquare() {
+        return jumpingSquare;
+    }
+
+    // Owner of the piece on (row, col): 1, 2, or 0 when empty or not a dark square
+    public int getOwner(int row, int col) {
+        int square = squareAt(row, col);
+        if (square < 0) {
+            return 0;
+        }
+        return ownerOf(square);
+    }
+
+    public boolean isKing(int row, int col) {
+        int square = squareAt(row, col);
+        return square >= 0 && (kings & (1 << square)) != 0;
+    }
+
+    public int countPieces(int player) {
+        return Integer.bitCount(getPieces(player));
+    }
+
+    private int ownerOf(int square) {
+        int bit = 1 << square;
+        if ((player1 & bit) != 0) {
+            return 1;
+        }
+        return (player2 & bit) != 0 ? 2 : 0;
+    }
+
+    // Shift a set of squares one step diagonally. On even rows the dark squares sit one column to
+    // the right of those on odd rows, so the index offset of a step alternates with the row
+    // (4 or 5 going left, 3 or 4 going right); the column masks drop squares that would wrap around.
+    public static int shift(int squares, int dir) {
+        switch (dir) {
+            case UP_LEFT:
+                return ((squares & EVEN_ROWS) >>> 4) | ((squares & ODD_ROWS & ~LEFT_EDGE) >>> 5);
+            case UP_RIGHT:
+                return ((squares & EVEN_ROWS & ~RIGHT_EDGE) >>> 3) | ((squares & ODD_ROWS) >>> 4);
+            case DOWN_LEFT:
+                return ((squares & EVEN_ROWS) << 4) | ((squares & ODD_ROWS & ~LEFT_EDGE) << 3);
+            default:
+                return ((squares & EVEN_ROWS & ~RIGHT_EDGE) << 5) | ((squares & ODD_ROWS) << 4);
+        }
+    }
+
+    // Pieces of `player` allowed to move in direction `dir`: kings always, men only forwards
+    private int moversFor(int player, int dir) {
+        int pieces = getPieces(player);
+        return (player == 1) == (dir < 2) ? pieces : pieces & kings;
+    }
+
+    // Squares `player` attacks: the squares next to their pieces in the directions those pieces may move
+    public int getAttacks(int player) {
+        updateAttacks();
+        return attacks[player];
+    }
+
+    // Empty squares a jump by `player` would land on, ignoring whose turn it is
+    public int getLandings(int player) {
+        updateAttacks();
+        return landings[player];
+    }
+
+    // Pieces of `player` that the opponent could capture, ignoring whose turn it is
+    public int getHangingPieces(int player) {
+        updateAttacks();
+        return hanging[player];
+    }
+
+    // Check if the piece on `square` could be captured by the opponent; false for an empty square
+    public boolean isCapturable(int square) {
+        int owner = ownerOf(square);
+        return owner != 0 && (getHangingPieces(owner) & (1 << square)) != 0;
+    }
+
+    // An opposing piece is hanging when one of the player's pieces attacks it and the square
+    // beyond it in the same direction is empty; that empty square is then a landing square
+    private void updateAttacks() {
+        if (attacksValid) {
+            return;
+        }
+        int empty = ~(player1 | player2);
+        for (int player = 1; player <= 2; player++) {
+            int opp = getPieces(3 - player);
+            int attacked = 0;
+            int jumped = 0;
+            int landed = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                int targets = shift(moversFor(player, dir), dir);
+                int open = targets & opp & shift(empty, 3 - dir);
+                attacked |= targets;
+                jumped |= open;
+                landed |= shift(open, dir);
+            }
+            attacks[player] = attacked;
+            landings[player] = landed;
+            hanging[3 - player] = jumped;
+        }
+        attacksValid = true;
+    }
+
+    // Pieces of `player` that have a jump available, ignoring whose turn it is
+    public int getJumpers(int player) {
+        int opp = getPieces(3 - player);
+        int empty = ~(player1 | player2);
+        int jumpers = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            // Walk back from the empty landing squares over opposing pieces to the jumpers
+            int back = 3 - dir;
+            jumpers |= shift(shift(empty, back) & opp, back) & moversFor(player, dir);
+        }
+        return jumpers;
+    }
+
+    // Pieces of `player` that have a simple move available, ignoring whose turn it is
+    public int getMovers(int player) {
+        int empty = ~(player1 | player2);
+        int movers = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            movers |= shift(empty, 3 - dir) & moversFor(player, dir);
+        }
+        return movers;
+    }
+
+    // Fill `steps` with the legal steps for the player to move and return how many there are.
+    // Jumps are mandatory, so simple moves are only listed when there is no jump.
+    // The buffer needs room for MAX_STEPS entries; nothing is allocated.
+    public int generateSteps(int[] steps) {
+        int opp = getPieces(3 - currentPlayer);
+        int empty = ~(player1 | player2);
+        int count = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int movers = moversFor(currentPlayer, dir);
+            if (jumpingSquare >= 0) {
+                movers &= 1 << jumpingSquare;
+            }
+            int back = 3 - dir;
+            for (int landings = shift(shift(movers, dir) & opp, dir) & empty; landings != 0; landings &= landings - 1) {
+                int to = Integer.numberOfTrailingZeros(landings);
+                steps[count++] = step(NEIGHBOURS[NEIGHBOURS[to][back]][back], to);
+            }
+        }
+        if (count > 0 || jumpingSquare >= 0) {
+            return count;
+        }
+        for (int dir = 0; dir < 4; dir++) {
+            int back = 3 - dir;
+            for (int targets = shift(moversFor(currentPlayer, dir), dir) & empty; targets != 0; targets &= targets - 1) {
+                int to = Integer.numberOfTrailingZeros(targets);
+                steps[count++] = step(NEIGHBOURS[to][back], to);
+            }
+        }
+        return count;
+    }
+
+    // Fill `moves` with the legal moves for the player to move and return how many there are.
+    // A move is a whole turn: a simple move, or a capture followed through to the end of its
+    // multi-jump. Every branch of a multi-jump is a separate move. The buffer needs room for MAX_MOVES entries.
+    public int generateMoves(long[] moves) {
+        if (sequenceSteps == null) {
+            sequenceSteps = new int[MAX_JUMPS + 1][MAX_STEPS];
+        }
+        int[] steps = sequenceSteps[0];
+        int count = generateSteps(steps);
+        if (count == 0 || !isJump(steps[0])) {
+            for (int i = 0; i < count; i++) {
+                moves[i] = startMove(steps[i]);
+            }
+            return count;
+        }
+        int moveCount = 0;
+        for (int i = 0; i < count; i++) {
+            moveCount = addCaptures(steps[i], startMove(steps[i]), moves, moveCount);
+        }
+        return moveCount;
+    }
+
+    // Follow a capture sequence through every continuation, recording each finished sequence
+    private int addCaptures(int step, long move, long[] moves, int count) {
+        makeStep(step);
+        if (jumpingSquare < 0) {
+            moves[count++] = move;
+        } else {
+            int[] steps = sequenceSteps[lengthOf(move)];
+            int continuations = generateSteps(steps);
+            for (int i = 0; i < continuations; i++) {
+                count = addCaptures(steps[i], extendMove(move, steps[i]), moves, count);
+            }
+        }
+        unmakeStep();
+        return count;
+    }
+
+    // Moves are packed into a long: start square in bits 0-4, number of steps in bits 5-8, a capture
+    // flag in bit 9, and the direction of step i in bits 10 + 2i
+    private static long startMove(int step) {
+        return fromOf(step) | (1L << 5) | (isJump(step) ? 1L << 9 : 0) | ((long) directionOf(step) << 10);
+    }
+
+    private static long extendMove(long move, int step) {
+        int length = lengthOf(move);
+        return (move & ~(0xfL << 5)) | ((long) (length + 1) << 5) | ((long) directionOf(step) << (10 + 2 * length));
+    }
+
+    private static int directionOf(int step) {
+        int from = fromOf(step);
+        int to = toOf(step);
+        return (rowOf(to) > rowOf(from) ? 2 : 0) + (colOf(to) > colOf(from) ? 1 : 0);
+    }
+
+    public static int moveFrom(long move) {
+        return (int) (move & 31);
+    }
+
+    // Number of steps in a move: 1 for a simple move or single jump
+    public static int lengthOf(long move) {
+        return (int) ((move >>> 5) & 0xf);
+    }
+
+    // Square reached after step `index` of a move
+    public static int landingOf(long move, int index) {
+        int square = moveFrom(move);
+        int[][] targets = isCapture(move) ? JUMPS : NEIGHBOURS;
+        for (int i = 0; i <= index; i++) {
+            square = targets[square][(int) (move >>> (10 + 2 * i)) & 3];
+        }
+        return square;
+    }
+
+    public static int moveTo(long move) {
+        return landingOf(move, lengthOf(move) - 1);
+    }
+
+    // The step-by-step form of step `index` of a move
+    public static int stepOf(long move, int index) {
+        return step(index == 0 ? moveFrom(move) : landingOf(move, index - 1), landingOf(move, index));
+    }
+
+    public static boolean isCapture(long move) {
+        return (move & (1L << 9)) != 0;
+    }
+
+    // Play a whole move from generateMoves; unmakeMove takes it back
+    public void makeMove(long move) {
+        int length = lengthOf(move);
+        for (int i = 0; i < length; i++) {
+            makeStep(stepOf(move, i));
+        }
+    }
+
+    public void unmakeMove(long move) {
+        for (int i = lengthOf(move); i > 0; i--) {
+            unmakeStep();
+        }
+    }
+
+    // Whether the piece on `square` could jump right now, ignoring whose turn it is
+    public boolean canJump(int square) {
+        int owner = ownerOf(square);
+        return owner != 0 && (getJumpers(owner) & (1 << square)) != 0;
+    }
+
+    public boolean hasLegalStep() {
+        if (jumpingSquare >= 0) {
+            return canJump(jumpingSquare);
+        }
+        return (getJumpers(currentPlayer) | getMovers(currentPlayer)) != 0;
+    }
+
+    public boolean isValidStep(int step) {
+        int from = fromOf(step);
+        int to = toOf(step);
+        if ((getPieces(currentPlayer) & (1 << from)) == 0 || ((player1 | player2) & (1 << to)) != 0) {
+            return false;
+        }
+        if (!isJump(step) && (jumpingSquare >= 0 || getJumpers(currentPlayer) != 0)) {
+            return false; // a jump is available and must be taken
+        }
+        if (jumpingSquare >= 0 && from != jumpingSquare) {
+            return false;
+        }
+        for (int dir = 0; dir < 4; dir++) {
+            if ((moversFor(currentPlayer, dir) & (1 << from)) == 0) {
+                continue;
+            }
+            int neighbour = NEIGHBOURS[from][dir];
+            if (neighbour == to) {
+                return true;
+            }
+            if (JUMPS[from][dir] == to && (getPieces(3 - currentPlayer) & (1 << neighbour)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Apply a legal step: move the piece, remove a jumped piece, crown men reaching the far row,
+    // and hand the turn over unless the piece can continue jumping.
+    // Returns the captured square, or -1 for a simple move. The step can be taken back with unmakeStep.
+    public int makeStep(int step) {
+        int from = fromOf(step);
+        int to = toOf(step);
+        int fromBit = 1 << from;
+        int toBit = 1 << to;
+        int captured = -1;
+        boolean capturedKing = false;
+        if (isJump(step)) {
+            captured = jumpedSquare(step);
+            int capturedBit = 1 << captured;
+            capturedKing = (kings & capturedBit) != 0;
+            hash ^= ZOBRIST[kindOf(3 - currentPlayer, capturedKing)][captured];
+            player1 &= ~capturedBit;
+            player2 &= ~capturedBit;
+            kings &= ~capturedBit;
+        }
+        if (currentPlayer == 1) {
+            player1 = (player1 & ~fromBit) | toBit;
+        } else {
+            player2 = (player2 & ~fromBit) | toBit;
+        }
+        boolean promoted = false;
+        boolean king = (kings & fromBit) != 0;
+        if (king) {
+            kings = (kings & ~fromBit) | toBit;
+        } else if (rowOf(to) == (currentPlayer == 1 ? 0 : GRID_SIZE - 1)) {
+            kings |= toBit;
+            promoted = true;
+        }
+        hash ^= ZOBRIST[kindOf(currentPlayer, king)][from] ^ ZOBRIST[kindOf(currentPlayer, king || promoted)][to]
+                ^ ZOBRIST_JUMPING[jumpingSquare + 1];
+        // Undo record: step in bits 0-9, captured square + 1 in bits 10-15, captured king in bit 16,
+        // promotion in bit 17, previous jumping square + 1 in bits 18-23, previous player in bits 24-25
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, 2 * historySize);
+        }
+        attacksValid = false;
+        history[historySize++] = step | (captured + 1) << 10 | (capturedKing ? 1 << 16 : 0) | (promoted ? 1 << 17 : 0)
+                | (jumpingSquare + 1) << 18 | currentPlayer << 24;
+        if (captured >= 0 && !promoted && canJump(to)) {
+            jumpingSquare = to;
+        } else {
+            jumpingSquare = -1;
+            currentPlayer = 3 - currentPlayer;
+            hash ^= ZOBRIST_SIDE;
+        }
+        hash ^= ZOBRIST_JUMPING[jumpingSquare + 1];
+        return captured;
+    }
+
+    // Number of steps that unmakeStep can take back
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    // The step made `index` steps after the start of the history, e.g. to record the game
+    public int getStep(int index) {
+        return history[index] & 0x3ff;
+    }
+
+    // Take back the last step made with makeStep, restoring the position exactly
+    public void unmakeStep() {
+        int record = history[--historySize];
+        attacksValid = false;
+        int step = record & 0x3ff;
+        int from = fromOf(step);
+        int to = toOf(step);
+        int fromBit = 1 << from;
+        int toBit = 1 << to;
+        int previousPlayer = (record >>> 24) & 3;
+        int previousJumping = ((record >>> 18) & 0x3f) - 1;
+        hash ^= ZOBRIST_JUMPING[jumpingSquare + 1] ^ ZOBRIST_JUMPING[previousJumping + 1]
+                ^ (previousPlayer != currentPlayer ? ZOBRIST_SIDE : 0);
+        currentPlayer = previousPlayer;
+        jumpingSquare = previousJumping;
+        if (currentPlayer == 1) {
+            player1 = (player1 & ~toBit) | fromBit;
+        } else {
+            player2 = (player2 & ~toBit) | fromBit;
+        }
+        boolean king = (kings & toBit) != 0;
+        boolean wasKing = king && (record & (1 << 17)) == 0;
+        if (king) {
+            kings &= ~toBit;
+            if (wasKing) {
+                kings |= fromBit;
+            }
+        }
+        hash ^= ZOBRIST[kindOf(currentPlayer, king)][to] ^ ZOBRIST[kindOf(currentPlayer, wasKing)][from];
+        int captured = ((record >>> 10) & 0x3f) - 1;
+        if (captured >= 0) {
+            int capturedBit = 1 << captured;
+            boolean capturedKing = (record & (1 << 16)) != 0;
+            if (currentPlayer == 1) {
+                player2 |= capturedBit;
+            } else {
+                player1 |= capturedBit;
+            }
+            if (capturedKing) {
+                kings |= capturedBit;
+            }
+            hash ^= ZOBRIST[kindOf(3 - currentPlayer, capturedKing)][captured];
+        }
+    }
+
+    // The game ends when the player to move has no pieces or no legal step
+    public boolean isGameOver() {
+        return getWinner() != 0;
+    }
+
+    // 1 or 2 once the game is decided, otherwise 0
+    public int getWinner() {
+        if (player1 == 0) {
+            return 2;
+        }
+        if (player2 == 0) {
+            return 1;
+        }
+        if (!hasLegalStep()) {
+            return 3 - currentPlayer;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,469 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Win/loss/draw tables for every Checkers position with few pieces, built by retrograde analysis
+// and read back through memory maps.
+// Positions are stored with player 1 to move; a position with player 2 to move is rotated half a turn
+// and has its colours swapped first, which on the 32-square layout is just reversing the bit masks.
+// The tables are split into slices by material (men and kings of the side to move, then of the other
+// side), one file per slice. Inside a slice each group of pieces is ranked as a combination of
+// squares, so an index is a handful of table lookups; impossible placements are marked invalid.
+// File layout (big-endian): int magic, int version, int material, int unused, long entry count,
+// then one byte per position: 0 draw, n > 0 win in n plies, -(n + 1) loss in n plies, -128 invalid.
+// The win/loss/draw result is exact; distances are the ply counts the passes found them at, capped at
+// 126, which is plenty for preferring a quick win but not guaranteed to be the shortest one.
+public class CheckersEndgameDatabase {
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    public static final byte DRAW = 0;
+    public static final byte INVALID = Byte.MIN_VALUE;
+
+    private static final int MAGIC = 0x43444231; // "CDB1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int MAX_DISTANCE = 126;
+    private static final int MAX_GROUP = 12;
+    // Positions per parallel work unit while solving a slice
+    private static final int SOLVE_CHUNK = 1 << 16;
+    // Every slice of up to six pieces fits in a single memory map; seven would not
+    public static final int MAX_SUPPORTED_PIECES = 6;
+    // Men cannot stand on the row where they would be crowned
+    private static final int PLAYER1_CROWN_ROW = 0x0000000f;
+    private static final int PLAYER2_CROWN_ROW = 0xf0000000;
+    // BINOMIAL[n][k] = n choose k
+    private static final long[][] BINOMIAL = new long[33][MAX_GROUP + 1];
+
+    static {
+        for (int n = 0; n <= 32; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, MAX_GROUP); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final Path directory;
+    private int maxPieces;
+    // Loaded slices indexed by material key, null where the slice is missing
+    private final MappedByteBuffer[] slices = new MappedByteBuffer[1 << 16];
+
+    private CheckersEndgameDatabase(Path directory, int maxPieces) {
+        this.directory = directory;
+        this.maxPieces = maxPieces;
+    }
+
+    // Map every slice file in `directory`. The database covers the largest piece count for which
+    // every slice is present; positions with more pieces are never probed.
+    public static CheckersEndgameDatabase open(Path directory) throws IOException {
+        CheckersEndgameDatabase database = new CheckersEndgameDatabase(directory, 0);
+        for (int[] material : materials(MAX_SUPPORTED_PIECES)) {
+            int total = material[0] + material[1] + material[2] + material[3];
+            if (!database.load(material)) {
+                database.maxPieces = total - 1;
+                break;
+            }
+            database.maxPieces = total;
+        }
+        if (database.maxPieces < 2) {
+            throw new IOException("No Checkers endgame tables in " + directory);
+        }
+        return database;
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    private boolean load(int[] material) throws IOException {
+        Path path = directory.resolve(fileName(material));
+        if (!Files.isReadable(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != key(material)
+                    || buffer.getLong(16) != sliceSize(material)) {
+                throw new IOException("Not a Checkers endgame table for " + fileName(material) + ": " + path);
+            }
+            slices[key(material)] = buffer;
+            return true;
+        }
+    }
+
+    // Stored value for the position from the point of view of the player to move, or UNKNOWN when it is
+    // not covered (too many pieces, a slice that has not been generated, or a multi-jump in progress)
+    public int probe(CheckersBoard board) {
+        if (board.getJumpingSquare() >= 0) {
+            return UNKNOWN;
+        }
+        int own = board.getPieces(board.getCurrentPlayer());
+        int opp = board.getPieces(3 - board.getCurrentPlayer());
+        int kings = board.getKings();
+        if (board.getCurrentPlayer() == 2) {
+            own = Integer.reverse(own);
+            opp = Integer.reverse(opp);
+            kings = Integer.reverse(kings);
+        }
+        return probe(own, opp, kings);
+    }
+
+    // Value for the position where player 1 owns `own`, player 2 owns `opp` and player 1 is to move
+    public int probe(int own, int opp, int kings) {
+        if (own == 0) {
+            return loss(0);
+        }
+        if (opp == 0 || Integer.bitCount(own | opp) > maxPieces) {
+            return UNKNOWN;
+        }
+        MappedByteBuffer slice = slices[key(own, opp, kings)];
+        if (slice == null) {
+            return UNKNOWN;
+        }
+        return slice.get(HEADER_BYTES + (int) index(own, opp, kings));
+    }
+
+    public static boolean isWin(int value) {
+        return value != UNKNOWN && value > 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return value != UNKNOWN && value < 0 && value != INVALID;
+    }
+
+    // Plies until the win or loss is over
+    public static int distanceOf(int value) {
+        return value > 0 ? value : -value - 1;
+    }
+
+    private static int win(int distance) {
+        return Math.min(distance, MAX_DISTANCE + 1);
+    }
+
+    private static int loss(int distance) {
+        return -Math.min(distance, MAX_DISTANCE) - 1;
+    }
+
+    // Material key: men and kings of the side to move, then men and kings of the other side
+    private static int key(int[] material) {
+        return material[0] | material[1] << 4 | material[2] << 8 | material[3] << 12;
+    }
+
+    private static int key(int own, int opp, int kings) {
+        return Integer.bitCount(own & ~kings) | Integer.bitCount(own & kings) << 4
+                | Integer.bitCount(opp & ~kings) << 8 | Integer.bitCount(opp & kings) << 12;
+    }
+
+    private static String fileName(int[] material) {
+        return String.format("%d%d%d%d.cdb", material[0], material[1], material[2], material[3]);
+    }
+
+    private static long sliceSize(int[] material) {
+        long size = 1;
+        for (int count : material) {
+            size *= BINOMIAL[32][count];
+        }
+        return size;
+    }
+
+    // Position of the squares within their slice, each group ranked as a combination
+    private static long index(int own, int opp, int kings) {
+        long index = rank(own & ~kings);
+        index = index * BINOMIAL[32][Integer.bitCount(own & kings)] + rank(own & kings);
+        index = index * BINOMIAL[32][Integer.bitCount(opp & ~kings)] + rank(opp & ~kings);
+        return index * BINOMIAL[32][Integer.bitCount(opp & kings)] + rank(opp & kings);
+    }
+
+    // Colexicographic rank of a set of squares among all sets of the same size
+    private static long rank(int squares) {
+        long rank = 0;
+        int i = 1;
+        for (int rest = squares; rest != 0; rest &= rest - 1, i++) {
+            rank += BINOMIAL[Integer.numberOfTrailingZeros(rest)][i];
+        }
+        return rank;
+    }
+
+    private static int unrank(long rank, int count) {
+        int squares = 0;
+        for (int i = count; i > 0; i--) {
+            int square = i - 1;
+            while (square + 1 < 32 && BINOMIAL[square + 1][i] <= rank) {
+                square++;
+            }
+            squares |= 1 << square;
+            rank -= BINOMIAL[square][i];
+        }
+        return squares;
+    }
+
+    // The four square groups of position `index` in a slice, or null for an impossible placement
+    private static int[] unindex(long index, int[] material) {
+        int[] groups = new int[4];
+        return unindex(index, material, groups) ? groups : null;
+    }
+
+    // Allocation-free form of unindex for the generator: fills `groups` and returns whether the
+    // index is a valid position
+    private static boolean unindex(long index, int[] material, int[] groups) {
+        for (int g = 3; g >= 0; g--) {
+            long size = BINOMIAL[32][material[g]];
+            groups[g] = unrank(index % size, material[g]);
+            index /= size;
+        }
+        int all = 0;
+        for (int squares : groups) {
+            if ((all & squares) != 0) {
+                return false;
+            }
+            all |= squares;
+        }
+        return (groups[0] & PLAYER1_CROWN_ROW) == 0 && (groups[2] & PLAYER2_CROWN_ROW) == 0;
+    }
+
+    // Every material split with both sides on the board and at most `maxPieces` pieces, in the order
+    // they have to be built: fewer pieces first, and for the same count fewer men first, since
+    // captures and crownings only ever lead to slices earlier in this order
+    static List<int[]> materials(int maxPieces) {
+        List<int[]> materials = new ArrayList<>();
+        for (int total = 2; total <= maxPieces; total++) {
+            for (int men = 0; men <= total; men++) {
+                for (int ownMen = 0; ownMen <= men; ownMen++) {
+                    int oppMen = men - ownMen;
+                    for (int ownKings = 0; ownKings <= total - men; ownKings++) {
+                        int oppKings = total - men - ownKings;
+                        if (ownMen + ownKings > 0 && oppMen + oppKings > 0
+                                && ownMen + ownKings <= MAX_GROUP && oppMen + oppKings <= MAX_GROUP) {
+                            materials.add(new int[]{ownMen, ownKings, oppMen, oppKings});
+                        }
+                    }
+                }
+            }
+        }
+        return materials;
+    }
+
+    // Build every missing slice for up to `maxPieces` pieces into `directory`.
+    // A slice and its colour-swapped partner are solved together, since their positions lead into
+    // each other, by repeated passes: a position is a win once some move reaches a lost position,
+    // and a loss once every move reaches a won one. Whatever is still open when a pass changes
+    // nothing is a draw. Finished slices are written to disk, so an interrupted run picks up
+    // where it stopped.
+    public static CheckersEndgameDatabase generate(Path directory, int maxPieces, int threads) throws Exception {
+        if (maxPieces < 2 || maxPieces > MAX_SUPPORTED_PIECES) {
+            throw new IllegalArgumentException("Piece count must be between 2 and " + MAX_SUPPORTED_PIECES + ": " + maxPieces);
+        }
+        Files.createDirectories(directory);
+        CheckersEndgameDatabase database = new CheckersEndgameDatabase(directory, maxPieces);
+        List<int[]> materials = materials(maxPieces);
+        long start = System.nanoTime();
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+        try {
+            for (int[] material : materials) {
+                if (database.slices[key(material)] != null || database.load(material)) {
+                    continue;
+                }
+                // If only the partner made it to disk before an interruption it is simply rebuilt
+                int[] partner = {material[2], material[3], material[0], material[1]};
+                boolean symmetric = key(partner) == key(material);
+                int[][] pair = symmetric ? new int[][]{material} : new int[][]{material, partner};
+                byte[][] values = pool.submit(() -> database.solve(pair, start)).get();
+                for (int i = 0; i < pair.length; i++) {
+                    database.write(pair[i], values[i]);
+                    database.load(pair[i]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf("All slices up to %d pieces ready in %s (%.1f s)%n",
+                maxPieces, directory, (System.nanoTime() - start) / 1e9);
+        return database;
+    }
+
+    // Retrograde passes over one slice and its partner; runs inside the generator's pool.
+    // Each slice is processed in chunks, and every chunk reuses one board, move buffer and group
+    // array for all its positions. Two buffers per slice are allocated once and swapped between
+    // passes, so a pass allocates next to nothing however large the slices are.
+    private byte[][] solve(int[][] pair, long start) {
+        byte[][] values = new byte[pair.length][];
+        byte[][] next = new byte[pair.length][];
+        long open = 0;
+        for (int s = 0; s < pair.length; s++) {
+            values[s] = new byte[(int) sliceSize(pair[s])];
+            next[s] = new byte[values[s].length];
+            byte[] slice = values[s];
+            int[] material = pair[s];
+            open += IntStream.range(0, chunkCount(slice.length)).parallel().mapToLong(chunk -> {
+                int[] groups = new int[4];
+                long valid = 0;
+                for (int i = chunk * SOLVE_CHUNK; i < Math.min(slice.length, (chunk + 1) * SOLVE_CHUNK); i++) {
+                    if (unindex(i, material, groups)) {
+                        valid++;
+                    } else {
+                        slice[i] = INVALID;
+                    }
+                }
+                return valid;
+            }).sum();
+        }
+        // During the passes 0 means "not known yet"; results of a pass only become visible to the next one,
+        // so positions inside the pair are resolved in order of distance
+        int pass = 0;
+        while (true) {
+            pass++;
+            long resolved = 0;
+            for (int s = 0; s < pair.length; s++) {
+                System.arraycopy(values[s], 0, next[s], 0, values[s].length);
+            }
+            byte[][] known = values;
+            byte[][] updated = next;
+            for (int s = 0; s < pair.length; s++) {
+                int slice = s;
+                int length = known[s].length;
+                resolved += IntStream.range(0, chunkCount(length)).parallel().mapToLong(chunk -> {
+                    CheckersBoard board = new CheckersBoard(0, 0, 0, 1);
+                    long[] moves = new long[CheckersBoard.MAX_MOVES];
+                    int[] groups = new int[4];
+                    long count = 0;
+                    for (int i = chunk * SOLVE_CHUNK; i < Math.min(length, (chunk + 1) * SOLVE_CHUNK); i++) {
+                        if (known[slice][i] != 0) {
+                            continue;
+                        }
+                        int value = solvePosition(pair, known, slice, i, board, moves, groups);
+                        if (value != 0) {
+                            updated[slice][i] = (byte) value;
+                            count++;
+                        }
+                    }
+                    return count;
+                }).sum();
+            }
+            values = updated;
+            next = known;
+            open -= resolved;
+            System.out.printf("%s pass %d: %d resolved, %d open (%.1f s)%n",
+                    fileName(pair[0]), pass, resolved, open, (System.nanoTime() - start) / 1e9);
+            if (resolved == 0) {
+                return values; // everything still open is a draw, already stored as 0
+            }
+        }
+    }
+
+    private static int chunkCount(int length) {
+        return (length + SOLVE_CHUNK - 1) / SOLVE_CHUNK;
+    }
+
+    // Value of one open position from the values known so far, or 0 if it is still undecided.
+    // `board`, `moves` and `groups` are scratch space owned by the calling chunk.
+    private int solvePosition(int[][] pair, byte[][] values, int slice, long index,
+                              CheckersBoard board, long[] moves, int[] groups) {
+        unindex(index, pair[slice], groups);
+        board.setPosition(groups[0] | groups[1], groups[2] | groups[3], groups[1] | groups[3], 1);
+        int count = board.generateMoves(moves);
+        if (count == 0) {
+            return loss(0);
+        }
+        int bestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean allWin = true;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            // The opponent is to move now: rotate so that they become player 1
+            int own = Integer.reverse(board.getPieces(2));
+            int opp = Integer.reverse(board.getPieces(1));
+            int kings = Integer.reverse(board.getKings());
+            board.unmakeMove(moves[i]);
+            int child = childValue(pair, values, own, opp, kings);
+            if (isLoss(child)) {
+                bestWin = Math.min(bestWin, distanceOf(child) + 1);
+            } else if (isWin(child)) {
+                longestLoss = Math.max(longestLoss, distanceOf(child) + 1);
+            } else {
+                allWin = false;
+            }
+        }
+        if (bestWin != Integer.MAX_VALUE) {
+            return win(bestWin);
+        }
+        return allWin ? loss(longestLoss) : 0;
+    }
+
+    private int childValue(int[][] pair, byte[][] values, int own, int opp, int kings) {
+        if (own == 0) {
+            return loss(0);
+        }
+        int key = key(own, opp, kings);
+        for (int s = 0; s < pair.length; s++) {
+            if (key(pair[s]) == key) {
+                int value = values[s][(int) index(own, opp, kings)];
+                return value == 0 ? UNKNOWN : value;
+            }
+        }
+        return probe(own, opp, kings);
+    }
+
+    // Write through a temporary file so a crash never leaves a truncated slice behind
+    private void write(int[] material, byte[] values) throws IOException {
+        Path path = directory.resolve(fileName(material));
+        Path temporary = directory.resolve(fileName(material) + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(key(material));
+            out.writeInt(0);
+            out.writeLong(values.length);
+            out.write(values);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Usage: java CheckersEndgameDatabase [directory] [maxPieces] [threads]
+    // Builds the missing slices, then times random probes.
+    public static void main(String[] args) throws Exception {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "checkers-egdb");
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        CheckersEndgameDatabase database = generate(directory, maxPieces, threads);
+
+        // Probe positions drawn from the tables themselves, twice over so the second round runs on warm pages
+        java.util.Random random = new java.util.Random(1);
+        List<int[]> materials = materials(maxPieces);
+        int[][] positions = new int[100_000][];
+        for (int i = 0; i < positions.length; i++) {
+            int[] material = materials.get(random.nextInt(materials.size()));
+            int[] groups;
+            do {
+                groups = unindex((long) (random.nextDouble() * sliceSize(material)), material);
+            } while (groups == null);
+            positions[i] = new int[]{groups[0] | groups[1], groups[2] | groups[3], groups[1] | groups[3]};
+        }
+        long sink = 0;
+        for (int round = 1; round <= 2; round++) {
+            int wins = 0;
+            int losses = 0;
+            long begin = System.nanoTime();
+            for (int[] position : positions) {
+                int value = database.probe(position[0], position[1], position[2]);
+                wins += isWin(value) ? 1 : 0;
+                losses += isLoss(value) ? 1 : 0;
+                sink += value;
+            }
+            System.out.printf("probe round %d: %.0f ns/probe, %d wins, %d losses, %d draws%n", round,
+                    (System.nanoTime() - begin) / (double) positions.length, wins, losses, positions.length - wins - losses);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Random;
+
+// Rule-based Checkers AI used by the Checkers frame and the arena, playing either side.
+// Captures come first, then moves that take a threatened piece to safety, then moves that leave
+// no piece open to capture, and only then moves that do; ties are broken at random.
+// Threats come from the board's attack masks, which respect the directions men may move in.
+public class CheckersHeuristicAI {
+    private final Random random;
+    private final int[] steps = new int[CheckersBoard.MAX_STEPS];
+    private final int[] captureMoves = new int[CheckersBoard.MAX_STEPS];
+    private final int[] protectiveMoves = new int[CheckersBoard.MAX_STEPS];
+    private final int[] safeMoves = new int[CheckersBoard.MAX_STEPS];
+    private final int[] vulnerableMoves = new int[CheckersBoard.MAX_STEPS];
+
+    public CheckersHeuristicAI() {
+        this(new Random());
+    }
+
+    public CheckersHeuristicAI(Random random) {
+        this.random = random;
+    }
+
+    // Step for the player to move, or -1 when there is none.
+    // Candidate moves are tried on `board` in place, which is back in its original state on return.
+    public int determineMove(CheckersBoard board) {
+        int player = board.getCurrentPlayer();
+        int threatened = board.getHangingPieces(player);
+        int count = board.generateSteps(steps);
+        int captures = 0;
+        int protective = 0;
+        int safe = 0;
+        int vulnerable = 0;
+        for (int i = 0; i < count; i++) {
+            int step = steps[i];
+            if (CheckersBoard.isJump(step)) {
+                captureMoves[captures++] = step;
+            } else if (isMoveVulnerable(board, step, player)) {
+                vulnerableMoves[vulnerable++] = step;
+            } else {
+                safeMoves[safe++] = step;
+                // A safe move of a piece that is threatened where it stands rescues it
+                if ((threatened & (1 << CheckersBoard.fromOf(step))) != 0) {
+                    protectiveMoves[protective++] = step;
+                }
+            }
+        }
+        if (captures > 0) {
+            return captureMoves[random.nextInt(captures)];
+        }
+        if (protective > 0) {
+            return protectiveMoves[random.nextInt(protective)];
+        }
+        if (safe > 0) {
+            return safeMoves[random.nextInt(safe)];
+        }
+        if (vulnerable > 0) {
+            return vulnerableMoves[random.nextInt(vulnerable)];
+        }
+        return -1;
+    }
+
+    // Check if the move leaves any piece of `player`, the moved one included, open to capture.
+    // The move is made on the board itself and taken back before returning.
+    private static boolean isMoveVulnerable(CheckersBoard board, int step, int player) {
+        board.makeStep(step);
+        boolean vulnerable = board.getHangingPieces(player) != 0;
+        board.unmakeStep();
+        return vulnerable;
+    }
+}
@@ -0,0 +1,58 @@
+// Headless perft for the Checkers move generator: counts the leaf nodes of the game tree to a fixed
+// depth from the start position and checks them against the published values.
+// A move is a whole turn, so each complete multi-jump counts once, and captures are mandatory.
+// A position without a legal move has no children and adds nothing to the count.
+public class CheckersPerft {
+    // Reference leaf counts for depths 1 to 12 from the standard start position
+    private static final long[] REFERENCE = {
+        1L, 7L, 49L, 302L, 1469L, 7361L, 36768L, 179740L, 845931L, 3963680L, 18391564L,
+        85242128L, 388623673L
+    };
+
+    public static long perft(CheckersBoard board, int depth) {
+        return perft(board, depth, new long[Math.max(depth, 1)][CheckersBoard.MAX_MOVES]);
+    }
+
+    // `moves` holds one move buffer per remaining ply so the count allocates nothing
+    private static long perft(CheckersBoard board, int depth, long[][] moves) {
+        if (depth == 0) {
+            return 1;
+        }
+        long[] buffer = moves[depth - 1];
+        int count = board.generateMoves(buffer);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(buffer[i]);
+            nodes += perft(board, depth - 1, moves);
+            board.unmakeMove(buffer[i]);
+        }
+        return nodes;
+    }
+
+    public static long reference(int depth) {
+        return depth < REFERENCE.length ? REFERENCE[depth] : -1;
+    }
+
+    // Usage: java CheckersPerft [maxDepth]
+    // Exits with status 1 if any count differs from the reference.
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+        boolean ok = true;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long nodes = perft(new CheckersBoard(), depth);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long expected = reference(depth);
+            String status = expected < 0 ? "no reference" : nodes == expected ? "ok" : "MISMATCH, expected " + expected;
+            ok &= expected < 0 || nodes == expected;
+            System.out.printf("depth %2d: %,15d nodes  %8.3f s  %,13.0f nodes/s  %s%n",
+                    depth, nodes, seconds, nodes / Math.max(seconds, 1e-9), status);
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
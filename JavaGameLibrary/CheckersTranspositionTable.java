@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+// Fixed-size transposition table for the Checkers search, stored in a single primitive array.
+// Each entry is two longs, key ^ data followed by data, and entries live in buckets of four so a bucket
+// fills one 64-byte cache line. A new result replaces the entry for the same position, otherwise the
+// shallowest entry left over from the oldest search.
+// The table can be shared by several search threads without locking: a slot torn by two racing writers
+// simply fails the key check on the next probe. The table keeps no counters of its own, so threads only
+// ever touch the entries; CheckersAI counts probes, hits and collisions per search thread.
+public class CheckersTranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_BYTES = 16;
+    // Data word layout: move (34) | score (18) | age (2) | depth (7) | bound (2) | used (1).
+    // A packed CheckersBoard move needs exactly 34 bits, and every score the search stores fits in 18.
+    private static final long USED = 1L;
+    private static final long MOVE_MASK = (1L << 34) - 1;
+
+    private final long[] entries;
+    private final int bucketMask;
+    private int age;
+
+    public CheckersTranspositionTable(int megabytes) {
+        long budget = Math.max(1, megabytes) * 1024L * 1024L / ENTRY_BYTES;
+        int capacity = Integer.highestOneBit((int) Math.min(budget, 1 << 29));
+        capacity = Math.max(capacity, BUCKET_SIZE);
+        entries = new long[2 * capacity];
+        bucketMask = capacity / BUCKET_SIZE - 1;
+    }
+
+    // Start a new search; entries from earlier searches become preferred replacement victims
+    public void newSearch() {
+        age = (age + 1) & 0x3;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0);
+        age = 0;
+    }
+
+    // Number of entries the table can hold
+    public int capacity() {
+        return entries.length / 2;
+    }
+
+    // Packed data word for the position, or 0 when it is not stored
+    public long probe(long key) {
+        int base = (int) (key & bucketMask) * BUCKET_SIZE * 2;
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long entry = entries[i + 1];
+            if (entry != 0 && (entries[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    // Returns whether the store evicted an entry for a different position
+    public boolean store(long key, int depth, int score, int bound, long move) {
+        int base = (int) (key & bucketMask) * BUCKET_SIZE * 2;
+        int victim = base;
+        int victimValue = Integer.MAX_VALUE;
+        boolean replacing = true;
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long entry = entries[i + 1];
+            if (entry == 0 || (entries[i] ^ entry) == key) {
+                // Keep a deeper result for the same position unless the new one is exact
+                if (entry != 0 && depth < depthOf(entry) && bound != EXACT) {
+                    return false;
+                }
+                victim = i;
+                replacing = false;
+                break;
+            }
+            // Prefer to overwrite shallow entries and entries left over from older searches
+            int staleness = (age - ageOf(entry)) & 0x3;
+            int value = depthOf(entry) - 8 * staleness;
+            if (value < victimValue) {
+                victimValue = value;
+                victim = i;
+            }
+        }
+        long entry = ((move & MOVE_MASK) << 30) | ((long) (score & 0x3ffff) << 12) | ((long) age << 10)
+                | ((long) (depth & 0x7f) << 3) | ((long) bound << 1) | USED;
+        entries[victim] = key ^ entry;
+        entries[victim + 1] = entry;
+        return replacing;
+    }
+
+    public static int scoreOf(long entry) {
+        return (int) (entry << 34 >> 46); // sign-extend bits 12-29
+    }
+
+    // The stored best move, or CheckersAI.NO_MOVE if none was stored
+    public static long moveOf(long entry) {
+        long move = entry >>> 30;
+        return move == 0 ? CheckersAI.NO_MOVE : move;
+    }
+
+    public static int depthOf(long entry) {
+        return (int) (entry >>> 3) & 0x7f;
+    }
+
+    public static int boundOf(long entry) {
+        return (int) (entry >>> 1) & 0x3;
+    }
+
+    private static int ageOf(long entry) {
+        return (int) (entry >>> 10) & 0x3;
+    }
+}
@@ -1,63 +1,94 @@
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent; // Added for KeyEvent support
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.Random;
 import javax.swing.*;
 
 public class Game2048 {
     private JFrame frame;
-    private int[][] board;
+    private Grid2048 grid;
     private int gridSize = 4; // Default grid size
-    private int score = 0;
+    private long score = 0;
+    private final Random random = new Random();
+    private JButton[][] buttons;
+    private JLabel scoreLabel;
+
+    // Auto Play slides a 4x4 board with Game2048AI every -Dgame2048.autoplay.millis=<ms>.
+    // Decisions are searched off the event dispatch thread, capped by -Dgame2048.ai.maxmillis=<ms>.
+    private Game2048AI ai; // null on other board sizes
+    private final BackgroundSearch search = new BackgroundSearch("2048 AI", Long.getLong("game2048.ai.maxmillis", 2000));
+    private final Timer autoPlayTimer = new Timer(Integer.getInteger("game2048.autoplay.millis", 50).intValue(), e -> autoPlayStep());
+    private JToggleButton autoPlayButton;
+    private JLabel autoPlayLabel;
+    private long autoPlayStartNanos;
+    private int autoPlayMoves;
 
     public Game2048() {
-        initializeGame();
+        if (chooseGridSize()) {
+            initializeGame();
+        } else {
+            new GameLauncher();
+        }
     }
 
-    private void initializeGame() {
-        board = new int[gridSize][gridSize];
-        initializeBoard(board);
-        createGUI();
+    // Ask for the board size; false when the dialog is closed without a choice
+    private boolean chooseGridSize() {
+        String[] options = new String[Grid2048.MAX_SIZE - Grid2048.MIN_SIZE + 1];
+        for (int i = 0; i < options.length; i++) {
+            int size = Grid2048.MIN_SIZE + i;
+            options[i] = size + "x" + size;
+        }
+        int choice = JOptionPane.showOptionDialog(
+                null,
+                "Choose Board Size:",
+                "2048 Game",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[gridSize - Grid2048.MIN_SIZE]
+        );
+        if (choice < 0) {
+            return false;
+        }
+        gridSize = Grid2048.MIN_SIZE + choice;
+        return true;
     }
 
-    private void initializeBoard(int[][] board) {
-        Random random = new Random();
-        for (int i = 0; i < 2; i++) {
-            spawnRandomTile(board, random);
+    private void initializeGame() {
+        grid = new Grid2048(gridSize);
+        grid.newGame(random);
+        if (gridSize == Board2048.SIZE) {
+            ai = createAI();
         }
+        createGUI();
     }
 
-    private void spawnRandomTile(int[][] board, Random random) {
-        int emptyCells = 0;
-        for (int[] row : board) {
-            for (int cell : row) {
-                if (cell == 0) {
-                    emptyCells++;
-                }
-            }
-        }
-        if (emptyCells == 0) {
-            return;
-        }
-        int target = random.nextInt(emptyCells);
-        int value = random.nextInt(10) < 9 ? 2 : 4;
-        int index = 0;
-        for (int r = 0; r < board.length; r++) {
-            for (int c = 0; c < board[r].length; c++) {
-                if (board[r][c] == 0) {
-                    if (index == target) {
-                        board[r][c] = value;
-                        return;
-                    }
-                    index++;
-                }
-            }
+    // -Dgame2048.ai.mode=expectimax|montecarlo on -Dgame2048.ai.threads=<count>, looking at most
+    // -Dgame2048.ai.depth=<slides> ahead or playing -Dgame2048.ai.rollouts=<games> per slide
+    private static Game2048AI createAI() {
+        int threads = Integer.getInteger("game2048.ai.threads", Runtime.getRuntime().availableProcessors());
+        if (System.getProperty("game2048.ai.mode", "expectimax").equalsIgnoreCase("montecarlo")) {
+            return Game2048AI.monteCarlo(Integer.getInteger("game2048.ai.rollouts", Game2048AI.DEFAULT_ROLLOUTS),
+                    threads, System.nanoTime());
         }
+        return new Game2048AI(Integer.getInteger("game2048.ai.depth", Game2048AI.DEFAULT_MAX_DEPTH),
+                Game2048AI.DEFAULT_PROBABILITY_THRESHOLD, threads);
     }
 
     private void createGUI() {
         frame = new JFrame("2048 Game (" + gridSize + "x" + gridSize + ")");
         frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        // Closing the window any way at all stops Auto Play and releases the AI's threads
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                setAutoPlay(false);
+                shutdownAI();
+            }
+        });
         frame.setSize(600, 600);
         frame.setLayout(new BorderLayout());
 
@@ -66,13 +97,13 @@ public class Game2048 {
         gamePanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         gamePanel.setBackground(Color.LIGHT_GRAY);
 
-        JButton[][] buttons = new JButton[gridSize][gridSize];
+        buttons = new JButton[gridSize][gridSize];
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
                 buttons[i][j] = new JButton();
-                buttons[i][j].setFont(new Font("Arial", Font.BOLD, 20));
+                buttons[i][j].setFont(new Font("Arial", Font.BOLD, Math.min(20, 80 / gridSize + 2))); // smaller on large boards so long numbers fit
                 buttons[i][j].setFocusPainted(false);
-                updateButton(buttons[i][j], board[i][j]);
+                updateButton(buttons[i][j], grid.getTile(i, j));
                 gamePanel.add(buttons[i][j]);
             }
         }
@@ -81,12 +112,23 @@ public class Game2048 {
 
         JPanel controlPanel = new JPanel();
         controlPanel.setLayout(new BorderLayout());
-        JLabel scoreLabel = new JLabel("Score: " + score, SwingConstants.CENTER);
+        scoreLabel = new JLabel("Score: " + score, SwingConstants.CENTER);
         scoreLabel.setFont(new Font("Arial", Font.BOLD, 20));
         controlPanel.add(scoreLabel, BorderLayout.NORTH);
 
+        autoPlayButton = new JToggleButton("Auto Play");
+        autoPlayButton.addActionListener(e -> setAutoPlay(autoPlayButton.isSelected()));
+        autoPlayButton.setEnabled(ai != null);
+        autoPlayLabel = new JLabel(" ", SwingConstants.CENTER);
+        JPanel autoPlayPanel = new JPanel(new BorderLayout());
+        autoPlayPanel.add(autoPlayLabel, BorderLayout.CENTER);
+        autoPlayPanel.add(autoPlayButton, BorderLayout.EAST);
+        controlPanel.add(autoPlayPanel, BorderLayout.CENTER);
+
         JButton backButton = new JButton("Back to Main Menu");
         backButton.addActionListener(e -> {
+            setAutoPlay(false);
+            shutdownAI();
             frame.dispose();
             new GameLauncher();
         });
@@ -113,59 +155,89 @@ public class Game2048 {
         actionMap.put("moveUp", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                tilt(board, Side.NORTH);
-                spawnRandomTile(board, new Random());
-                updateButtons(buttons, board);
-                scoreLabel.setText("Score: " + score);
-                checkGameOver(board, frame);
+                handleMove(Side.NORTH);
             }
         });
 
         actionMap.put("moveDown", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                tilt(board, Side.SOUTH);
-                spawnRandomTile(board, new Random());
-                updateButtons(buttons, board);
-                scoreLabel.setText("Score: " + score);
-                checkGameOver(board, frame);
+                handleMove(Side.SOUTH);
             }
         });
 
         actionMap.put("moveLeft", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                tilt(board, Side.WEST);
-                spawnRandomTile(board, new Random());
-                updateButtons(buttons, board);
-                scoreLabel.setText("Score: " + score);
-                checkGameOver(board, frame);
+                handleMove(Side.WEST);
             }
         });
 
         actionMap.put("moveRight", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                tilt(board, Side.EAST);
-                spawnRandomTile(board, new Random());
-                updateButtons(buttons, board);
-                scoreLabel.setText("Score: " + score);
-                checkGameOver(board, frame);
+                handleMove(Side.EAST);
             }
         });
 
         frame.setVisible(true);
     }
 
-    private void updateButtons(JButton[][] buttons, int[][] board) {
+    // Slide the board; a tile only spawns when the move changed something
+    private void handleMove(Side side) {
+        if (!tilt(side)) {
+            return;
+        }
+        grid.spawnTile(random);
+        updateButtons();
+        scoreLabel.setText("Score: " + score);
+        checkGameOver(frame);
+    }
+
+    private void setAutoPlay(boolean enabled) {
+        autoPlayButton.setSelected(enabled);
+        if (enabled) {
+            autoPlayStartNanos = System.nanoTime();
+            autoPlayMoves = 0;
+            autoPlayTimer.start();
+        } else {
+            autoPlayTimer.stop();
+            search.discard();
+        }
+    }
+
+    // One Auto Play tick: ask the AI for a slide unless it is still thinking about the last one
+    private void autoPlayStep() {
+        if (search.isRunning()) {
+            return;
+        }
+        long position = grid.toPacked();
+        search.start(() -> ai.findBestMove(position), ai::stop, () -> "Thinking", direction -> {
+            // Keys pressed meanwhile may have changed the board; the result is then stale
+            if (!autoPlayTimer.isRunning() || grid.toPacked() != position) {
+                return;
+            }
+            if (direction == Game2048AI.NO_MOVE) {
+                setAutoPlay(false);
+                return;
+            }
+            autoPlayMoves++;
+            double seconds = (System.nanoTime() - autoPlayStartNanos) / 1e9;
+            autoPlayLabel.setText(String.format("%d moves, %.1f moves/s, %.1f ms/move, max tile %d",
+                    autoPlayMoves, autoPlayMoves / seconds, ai.getLatencyNanos() / 1e6, 1L << grid.maxExponent()));
+            handleMove(Side.values()[direction]);
+        });
+    }
+
+    private void updateButtons() {
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                updateButton(buttons[i][j], board[i][j]);
+                updateButton(buttons[i][j], grid.getTile(i, j));
             }
         }
     }
 
-    private void updateButton(JButton button, int value) {
+    private void updateButton(JButton button, long value) {
         if (value == 0) {
             button.setText("");
             button.setBackground(Color.WHITE);
@@ -175,8 +247,8 @@ public class Game2048 {
         }
     }
 
-    private Color getColorForValue(int value) {
-        return switch (value) {
+    private Color getColorForValue(long value) {
+        return switch ((int) Math.min(value, Integer.MAX_VALUE)) {
             case 2 -> new Color(238, 228, 218);
             case 4 -> new Color(237, 224, 200);
             case 8 -> new Color(242, 177, 121);
@@ -192,122 +264,32 @@ public class Game2048 {
         };
     }
 
-    private boolean isGameOver(int[][] board) {
-        for (int r = 0; r < board.length; r++) {
-            for (int c = 0; c < board[r].length; c++) {
-                if (board[r][c] == 0) {
-                    return false;
-                }
-                if (r > 0 && board[r][c] == board[r - 1][c]) {
-                    return false;
-                }
-                if (c > 0 && board[r][c] == board[r][c - 1]) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    private void checkGameOver(int[][] board, JFrame frame) {
-        if (isGameOver(board)) {
+    private void checkGameOver(JFrame frame) {
+        if (grid.isGameOver()) {
+            setAutoPlay(false);
+            shutdownAI();
             JOptionPane.showMessageDialog(frame, "Game Over! No more moves available.");
             frame.dispose();
             new GameLauncher();
         }
     }
 
-    public void tilt(int[][] board, Side side) {
-        if (side == Side.EAST) {
-            rotateLeft(board);
-            tiltUp(board);
-            rotateRight(board);
-        } else if (side == Side.WEST) {
-            rotateRight(board);
-            tiltUp(board);
-            rotateLeft(board);
-        } else if (side == Side.SOUTH) {
-            rotateRight(board);
-            rotateRight(board);
-            tiltUp(board);
-            rotateLeft(board);
-            rotateLeft(board);
-        } else {
-            tiltUp(board);
-        }
-    }
-
-    public void tiltUp(int[][] board) {
-        for (int c = 0; c < board[0].length; c++) {
-            tiltColumn(board, c);
-        }
-    }
-
-    public void tiltColumn(int[][] board, int c) {
-        int minR = 0;
-        for (int r = 0; r < board.length; r++) {
-            if (board[r][c] != 0) {
-                minR = moveTileUpAsFarAsPossible(board, r, c, minR);
-            }
+    private void shutdownAI() {
+        if (ai != null) {
+            ai.shutdown();
         }
     }
 
-    public int moveTileUpAsFarAsPossible(int[][] board, int r, int c, int minR) {
-        int tempRow = r;
-        while (tempRow > minR && board[tempRow - 1][c] == 0) {
-            tempRow--;
-        }
-        if (tempRow > minR && board[tempRow - 1][c] == board[r][c]) {
-            int mergedValue = board[r][c] + board[tempRow - 1][c];
-            board[tempRow - 1][c] = mergedValue;
-            board[r][c] = 0;
-            score += mergedValue * 10;
-            return tempRow;
-        }
-        if (tempRow != r) {
-            board[tempRow][c] = board[r][c];
-            board[r][c] = 0;
-        }
-        return 0;
-    }
-
-    public void rotateLeft(int[][] board) {
-        int n = board.length;
-        for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                int temp = board[i][j];
-                board[i][j] = board[j][i];
-                board[j][i] = temp;
-            }
-        }
-        for (int j = 0; j < n; j++) {
-            for (int i = 0; i < n / 2; i++) {
-                int temp = board[i][j];
-                board[i][j] = board[n - 1 - i][j];
-                board[n - 1 - i][j] = temp;
-            }
-        }
-    }
-
-    public void rotateRight(int[][] board) {
-        int n = board.length;
-        for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                int temp = board[i][j];
-                board[i][j] = board[j][i];
-                board[j][i] = temp;
-            }
-        }
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n / 2; j++) {
-                int temp = board[i][j];
-                board[i][j] = board[i][n - 1 - j];
-                board[i][n - 1 - j] = temp;
-            }
+    // Slide all tiles towards the given side, merging equal pairs; returns whether anything moved
+    public boolean tilt(Side side) {
+        if (!grid.move(side.ordinal())) {
+            return false;
         }
+        score = grid.getScore() * 10;
+        return true;
     }
 
     public enum Side {
         NORTH, SOUTH, EAST, WEST
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,483 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Player for 2048 on Board2048's packed boards, in one of two modes.
+// Expectimax: max nodes try the four slides, chance nodes average over every empty cell receiving a
+// 2 (90%) or a 4 (10%). The search depth grows as the board fills up, and chance branches whose
+// probability of being reached drops below a threshold are cut off and scored by the heuristic instead.
+// The heuristic is a sum of precomputed per-row terms over the four rows and four columns: empty
+// cells, adjacent merges, monotonicity, smoothness and a penalty on the total size of the tiles.
+// Chance node values are cached per decision in a direct-mapped table.
+// Monte Carlo: every legal slide is followed by a batch of games played out with random slides, and
+// the slide with the best average final score wins.
+// With more than one thread both modes run on a ForkJoinPool: expectimax forks the root slides and
+// the chance nodes near the root, Monte Carlo splits the rollouts of each slide into chunks.
+public class Game2048AI {
+    public enum Mode {
+        EXPECTIMAX, MONTE_CARLO
+    }
+
+    public static final int NO_MOVE = -1;
+
+    public static final int DEFAULT_MAX_DEPTH = 5;
+    public static final double DEFAULT_PROBABILITY_THRESHOLD = 0.0001;
+    public static final int DEFAULT_ROLLOUTS = 1000;
+    private static final int CACHE_BITS = 18;
+    // Chance nodes with at least this many slides left are searched as parallel tasks
+    private static final int SPLIT_DEPTH = 2;
+    private static final int ROLLOUT_CHUNK = 100;
+
+    // Heuristic weights, applied per row and column
+    private static final double LOST_PENALTY = 200_000;
+    private static final double EMPTY_WEIGHT = 270;
+    private static final double MERGE_WEIGHT = 700;
+    private static final double MONOTONICITY_WEIGHT = 47;
+    private static final double MONOTONICITY_POWER = 4;
+    private static final double SMOOTHNESS_WEIGHT = 10;
+    private static final double SUM_WEIGHT = 11;
+    private static final double SUM_POWER = 3.5;
+
+    private static final float[] ROW_HEURISTIC = new float[1 << 16];
+
+    static {
+        int[] line = new int[Board2048.SIZE];
+        for (int row = 0; row < 1 << 16; row++) {
+            for (int i = 0; i < Board2048.SIZE; i++) {
+                line[i] = (row >>> (4 * i)) & 0xf;
+            }
+            ROW_HEURISTIC[row] = (float) evaluateRow(line);
+        }
+    }
+
+    private final Mode mode;
+    private final int maxDepth;
+    private final double probabilityThreshold;
+    private final int rollouts;
+    private SplittableRandom random;
+    private final ForkJoinPool pool; // null when searching on the caller's thread
+    private final int threads;
+    // Cache entries are two longs, board ^ data followed by data, so a slot torn by two racing
+    // threads fails the key check. Data: value as float bits (32) | stamp (24) | depth (8).
+    private final long[] cache = new long[2 << CACHE_BITS];
+    private int stamp;
+    private volatile boolean stopped;
+    private volatile long nodes;
+    private volatile int depth;
+    private volatile long latencyNanos;
+
+    public Game2048AI() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_PROBABILITY_THRESHOLD);
+    }
+
+    // maxDepth is the number of slides searched ahead once the board is nearly full; emptier boards
+    // are searched up to three slides less. Chance branches less likely than probabilityThreshold are
+    // evaluated statically.
+    public Game2048AI(int maxDepth, double probabilityThreshold) {
+        this(maxDepth, probabilityThreshold, 1);
+    }
+
+    // Expectimax on `threads` threads; a single thread searches on the caller's thread
+    public Game2048AI(int maxDepth, double probabilityThreshold, int threads) {
+        this(Mode.EXPECTIMAX, maxDepth, probabilityThreshold, DEFAULT_ROLLOUTS, threads, 0);
+    }
+
+    private Game2048AI(Mode mode, int maxDepth, double probabilityThreshold, int rollouts, int threads, long seed) {
+        this.mode = mode;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.probabilityThreshold = probabilityThreshold;
+        this.rollouts = Math.max(1, rollouts);
+        this.random = new SplittableRandom(seed);
+        this.threads = Math.max(1, threads);
+        this.pool = this.threads > 1 ? new ForkJoinPool(this.threads) : null;
+    }
+
+    // Monte Carlo player running `rollouts` random games after each legal slide. The rollouts are
+    // seeded from `seed`, so a decision sequence repeats for any number of threads.
+    public static Game2048AI monteCarlo(int rollouts, int threads, long seed) {
+        return new Game2048AI(Mode.MONTE_CARLO, DEFAULT_MAX_DEPTH, DEFAULT_PROBABILITY_THRESHOLD, rollouts, threads, seed);
+    }
+
+    // Release the worker threads; the AI must not be used afterwards
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Restart the Monte Carlo rollouts from `seed`, e.g. so every game of a batch repeats on its own
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    // Ask a running search to return now with the best move found so far; safe to call from any thread
+    public void stop() {
+        stopped = true;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Nodes visited, or slides played in rollouts, by the last call to findBestMove
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Depth of the last expectimax search, in slides
+    public int getDepth() {
+        return depth;
+    }
+
+    // Wall-clock time the last call to findBestMove took
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    // Slides to look ahead: shallow while the board is open, up to maxDepth once few cells are left.
+    // With the default of 5 that is 2, 3, 4 and 5 slides as the board fills.
+    public int depthFor(long board) {
+        int empty = Board2048.countEmpty(board);
+        int shallower = empty > 9 ? 3 : empty > 5 ? 2 : empty > 2 ? 1 : 0;
+        return Math.max(1, maxDepth - shallower);
+    }
+
+    // Best direction to slide, one of the Board2048 directions, or NO_MOVE when the game is over
+    public int findBestMove(long board) {
+        long start = System.nanoTime();
+        stopped = false;
+        nodes = 0;
+        double[] values = new double[4];
+        Arrays.fill(values, Double.NEGATIVE_INFINITY);
+        if (mode == Mode.EXPECTIMAX) {
+            searchExpectimax(board, values);
+        } else {
+            searchMonteCarlo(board, values);
+        }
+        int bestMove = NO_MOVE;
+        for (int direction = 0; direction < 4; direction++) {
+            if (Board2048.canMove(board, direction) && (bestMove == NO_MOVE || values[direction] > values[bestMove])) {
+                bestMove = direction;
+            }
+        }
+        latencyNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    // Run the tasks on the pool, or one after another on this thread without one
+    private void runAll(List<? extends ForkJoinTask<?>> tasks) {
+        if (pool == null) {
+            for (ForkJoinTask<?> task : tasks) {
+                task.invoke();
+            }
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+    }
+
+    private void searchExpectimax(long board, double[] values) {
+        depth = depthFor(board);
+        // Entries of earlier decisions were searched to other depths; a new stamp invalidates them all
+        stamp = (stamp + 1) & 0xffffff;
+        if (stamp == 0) {
+            Arrays.fill(cache, 0);
+            stamp = 1;
+        }
+        List<ExpectimaxTask> tasks = new ArrayList<>();
+        int[] directions = new int[4];
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next != board) {
+                directions[tasks.size()] = direction;
+                tasks.add(new ExpectimaxTask(next, depth - 1, 1.0, true));
+            }
+        }
+        runAll(tasks);
+        long searched = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            values[directions[i]] = tasks.get(i).getRawResult();
+            searched += tasks.get(i).nodes;
+        }
+        nodes = searched;
+    }
+
+    private void searchMonteCarlo(long board, double[] values) {
+        List<RolloutTask> tasks = new ArrayList<>();
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next == board) {
+                continue;
+            }
+            for (int done = 0; done < rollouts; done += ROLLOUT_CHUNK) {
+                tasks.add(new RolloutTask(direction, next, Math.min(ROLLOUT_CHUNK, rollouts - done), random.split()));
+            }
+        }
+        runAll(tasks);
+        long[] totals = new long[4];
+        int[] counts = new int[4];
+        long played = 0;
+        for (RolloutTask task : tasks) {
+            totals[task.direction] += task.getRawResult();
+            counts[task.direction] += task.completed;
+            played += task.slides;
+        }
+        for (int direction = 0; direction < 4; direction++) {
+            if (counts[direction] > 0) {
+                values[direction] = Board2048.score(board, direction) + (double) totals[direction] / counts[direction];
+            }
+        }
+        nodes = played;
+    }
+
+    // Value of a chance node, or of a max node, and of everything below it. The nodes it visits are
+    // counted in the task and added to its parent when the parent joins it.
+    private final class ExpectimaxTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final long board;
+        private final int depth;
+        private final double probability;
+        private final boolean chanceNode;
+        private long nodes;
+
+        ExpectimaxTask(long board, int depth, double probability, boolean chanceNode) {
+            this.board = board;
+            this.depth = depth;
+            this.probability = probability;
+            this.chanceNode = chanceNode;
+        }
+
+        @Override
+        protected Double compute() {
+            return chanceNode ? chance(board, depth, probability) : max(board, depth, probability);
+        }
+
+        // Expected value after a random tile spawns on `board`, with `depth` slides left to search
+        private double chance(long board, int depth, double probability) {
+            nodes++;
+            if (depth <= 0 || probability < probabilityThreshold || stopped) {
+                return evaluate(board);
+            }
+            int index = (int) ((board * 0x9e3779b97f4a7c15L) >>> (64 - CACHE_BITS)) * 2;
+            long data = cache[index + 1];
+            if (data != 0 && (cache[index] ^ data) == board && ((data >>> 8) & 0xffffff) == stamp
+                    && (data & 0xff) >= depth) {
+                return Float.intBitsToFloat((int) (data >>> 32));
+            }
+            int empty = Board2048.countEmpty(board);
+            double twoProbability = probability * 0.9 / empty;
+            double fourProbability = probability * 0.1 / empty;
+            double total = 0;
+            if (pool != null && depth >= SPLIT_DEPTH) {
+                List<ExpectimaxTask> children = new ArrayList<>(2 * empty);
+                for (int shift = 0; shift < 64; shift += 4) {
+                    if (((board >>> shift) & 0xf) == 0) {
+                        children.add(new ExpectimaxTask(board | (1L << shift), depth, twoProbability, false));
+                        children.add(new ExpectimaxTask(board | (2L << shift), depth, fourProbability, false));
+                    }
+                }
+                invokeAll(children);
+                for (int i = 0; i < children.size(); i += 2) {
+                    total += 0.9 * children.get(i).getRawResult() + 0.1 * children.get(i + 1).getRawResult();
+                    nodes += children.get(i).nodes + children.get(i + 1).nodes;
+                }
+            } else {
+                for (int shift = 0; shift < 64; shift += 4) {
+                    if (((board >>> shift) & 0xf) == 0) {
+                        total += 0.9 * max(board | (1L << shift), depth, twoProbability);
+                        total += 0.1 * max(board | (2L << shift), depth, fourProbability);
+                    }
+                }
+            }
+            double value = total / empty;
+            data = ((long) Float.floatToIntBits((float) value) << 32) | ((long) stamp << 8) | depth;
+            cache[index] = board ^ data;
+            cache[index + 1] = data;
+            return value;
+        }
+
+        // Value of the best slide from `board`; 0 when no slide is possible and the game is lost
+        private double max(long board, int depth, double probability) {
+            nodes++;
+            double best = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                long next = Board2048.move(board, direction);
+                if (next != board) {
+                    best = Math.max(best, chance(next, depth - 1, probability));
+                }
+            }
+            return best;
+        }
+    }
+
+    // Sum of the final scores of `count` games played out with random slides from the board left by
+    // the slide in `direction`, before its tile spawns
+    private final class RolloutTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int direction;
+        private final long board;
+        private final int count;
+        private final SplittableRandom random;
+        private int completed;
+        private long slides;
+
+        RolloutTask(int direction, long board, int count, SplittableRandom random) {
+            this.direction = direction;
+            this.board = board;
+            this.count = count;
+            this.random = random;
+        }
+
+        @Override
+        protected Long compute() {
+            long total = 0;
+            long[] options = new long[4];
+            int[] optionDirections = new int[4];
+            for (; completed < count && !stopped; completed++) {
+                long current = Board2048.spawnTile(board, random);
+                while (true) {
+                    int legal = 0;
+                    for (int d = 0; d < 4; d++) {
+                        long next = Board2048.move(current, d);
+                        if (next != current) {
+                            options[legal] = next;
+                            optionDirections[legal++] = d;
+                        }
+                    }
+                    if (legal == 0) {
+                        break;
+                    }
+                    int pick = random.nextInt(legal);
+                    total += Board2048.score(current, optionDirections[pick]);
+                    current = Board2048.spawnTile(options[pick], random);
+                    slides++;
+                }
+            }
+            return total;
+        }
+    }
+
+    // Static value of a board, summed over its rows and its columns
+    public static double evaluate(long board) {
+        long columns = Board2048.transpose(board);
+        return ROW_HEURISTIC[(int) (board & 0xffff)] + ROW_HEURISTIC[(int) ((board >>> 16) & 0xffff)]
+                + ROW_HEURISTIC[(int) ((board >>> 32) & 0xffff)] + ROW_HEURISTIC[(int) (board >>> 48)]
+                + ROW_HEURISTIC[(int) (columns & 0xffff)] + ROW_HEURISTIC[(int) ((columns >>> 16) & 0xffff)]
+                + ROW_HEURISTIC[(int) ((columns >>> 32) & 0xffff)] + ROW_HEURISTIC[(int) (columns >>> 48)];
+    }
+
+    private static double evaluateRow(int[] line) {
+        double sum = 0;
+        int empty = 0;
+        int merges = 0;
+        int previous = 0;
+        int run = 0;
+        for (int rank : line) {
+            sum += Math.pow(rank, SUM_POWER);
+            if (rank == 0) {
+                empty++;
+            } else if (rank == previous) {
+                run++;
+            } else {
+                if (run > 0) {
+                    merges += 1 + run;
+                }
+                run = 0;
+                previous = rank;
+            }
+        }
+        if (run > 0) {
+            merges += 1 + run;
+        }
+        // Penalise the cheaper of the two directions in which the row fails to be monotonic
+        double towardsStart = 0;
+        double towardsEnd = 0;
+        double roughness = 0;
+        for (int i = 1; i < line.length; i++) {
+            double a = Math.pow(line[i - 1], MONOTONICITY_POWER);
+            double b = Math.pow(line[i], MONOTONICITY_POWER);
+            if (line[i - 1] > line[i]) {
+                towardsStart += a - b;
+            } else {
+                towardsEnd += b - a;
+            }
+            if (line[i - 1] != 0 && line[i] != 0) {
+                roughness += Math.abs(line[i - 1] - line[i]);
+            }
+        }
+        return LOST_PENALTY + EMPTY_WEIGHT * empty + MERGE_WEIGHT * merges
+                - MONOTONICITY_WEIGHT * Math.min(towardsStart, towardsEnd)
+                - SMOOTHNESS_WEIGHT * roughness - SUM_WEIGHT * sum;
+    }
+
+    // Play whole games headlessly and report moves/s, average score, per-move latency percentiles
+    // and how often the 2048, 4096 and 8192 tiles were reached.
+    // Usage: java Game2048AI [games] [maxDepth|rollouts] [seed] [threads] [expectimax|montecarlo]
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        boolean monteCarlo = args.length > 4 && args[4].equalsIgnoreCase("montecarlo");
+        int strength = args.length > 1 ? Integer.parseInt(args[1]) : monteCarlo ? DEFAULT_ROLLOUTS : DEFAULT_MAX_DEPTH;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        Random random = new Random(seed);
+        Game2048AI ai = monteCarlo ? monteCarlo(strength, threads, seed)
+                : new Game2048AI(strength, DEFAULT_PROBABILITY_THRESHOLD, threads);
+        int[] reached = new int[16];
+        long[] latencies = new long[1024];
+        int totalMoves = 0;
+        long totalScore = 0;
+        long start = System.nanoTime();
+        for (int game = 1; game <= games; game++) {
+            long board = Board2048.newGame(random);
+            int score = 0;
+            int moves = 0;
+            int direction;
+            while ((direction = ai.findBestMove(board)) != NO_MOVE) {
+                if (totalMoves == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, 2 * totalMoves);
+                }
+                latencies[totalMoves++] = ai.getLatencyNanos();
+                score += Board2048.score(board, direction);
+                board = Board2048.spawnTile(Board2048.move(board, direction), random);
+                moves++;
+            }
+            int maxExponent = Board2048.maxExponent(board);
+            for (int exponent = 1; exponent <= maxExponent; exponent++) {
+                reached[exponent]++;
+            }
+            totalScore += score;
+            System.out.printf("game %d: score %d, max tile %d, %d moves%n", game, score, 1 << maxExponent, moves);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        ai.shutdown();
+        System.out.printf("%s on %d threads: %d games, average score %.0f, %.1f moves/s%n",
+                ai.getMode(), ai.getThreads(), games, (double) totalScore / games, totalMoves / seconds);
+        for (int exponent = 11; exponent <= 13; exponent++) {
+            System.out.printf("reached %5d: %5.1f%%%n", 1 << exponent, 100.0 * reached[exponent] / games);
+        }
+        Arrays.sort(latencies, 0, totalMoves);
+        System.out.printf("latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                percentile(latencies, totalMoves, 50) / 1e6, percentile(latencies, totalMoves, 90) / 1e6,
+                percentile(latencies, totalMoves, 99) / 1e6, percentile(latencies, totalMoves, 99.9) / 1e6,
+                totalMoves == 0 ? 0 : latencies[totalMoves - 1] / 1e6);
+    }
+
+    // Nearest-rank percentile of the first `count` values of a sorted array
+    private static long percentile(long[] sorted, int count, double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)];
+    }
+}
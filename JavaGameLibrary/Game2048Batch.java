@@ -0,0 +1,361 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Headless batch runner for 2048, for tuning policies over many games.
+// Games are spread over a pool of worker threads, each with its own policy instance. Game i is always
+// seeded with the i-th split of one SplittableRandom, so a batch repeats exactly for a given seed
+// whatever the number of threads. Per-game results are streamed to a CSV or binary file as games
+// finish and the summary is kept in fixed-size histograms, so memory does not grow with the batch.
+public class Game2048Batch {
+    private static final byte[] MAGIC = {'J', 'G', 'L', 'S'};
+    private static final int VERSION = 1;
+    private static final int BINARY_RECORD_BYTES = 13;
+
+    // Picks the slide to play, one of the Board2048 directions, on a board that is not game over.
+    // `random` belongs to the game being played and is the only source of randomness a policy may use.
+    public interface Policy {
+        int move(long board, SplittableRandom random);
+    }
+
+    // Counts of values in buckets that widen with the value: exact below 16, then four buckets per
+    // power of two, so a histogram covers any int in 124 longs
+    public static class Histogram {
+        private final long[] counts = new long[124];
+        private long total;
+        private long sum;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        public void add(int value) {
+            counts[bucketOf(value)]++;
+            total++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public void addAll(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public double getMean() {
+            return total == 0 ? 0 : (double) sum / total;
+        }
+
+        // Lower bound of the bucket holding the given percentile
+        public int percentile(double percent) {
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * total));
+            for (int i = 0; i < counts.length; i++) {
+                rank -= counts[i];
+                if (rank <= 0) {
+                    return Math.max(min, lowerBound(i));
+                }
+            }
+            return max;
+        }
+
+        private static int bucketOf(int value) {
+            if (value < 16) {
+                return Math.max(0, value);
+            }
+            int octave = 31 - Integer.numberOfLeadingZeros(value);
+            return 16 + (octave - 4) * 4 + ((value >>> (octave - 2)) & 3);
+        }
+
+        private static int lowerBound(int bucket) {
+            if (bucket < 16) {
+                return bucket;
+            }
+            int octave = (bucket - 16) / 4 + 4;
+            return (4 + (bucket - 16) % 4) << (octave - 2);
+        }
+
+        // One line per non-empty bucket with its range, count and a bar scaled to the largest count
+        public void print(String title) {
+            System.out.printf("%s: mean %.1f, min %d, p50 %d, p90 %d, p99 %d, max %d%n",
+                    title, getMean(), min, percentile(50), percentile(90), percentile(99), max);
+            long largest = Arrays.stream(counts).max().orElse(0);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                int high = i + 1 < counts.length ? lowerBound(i + 1) - 1 : Integer.MAX_VALUE;
+                String range = lowerBound(i) == high ? String.valueOf(high) : lowerBound(i) + "-" + high;
+                System.out.printf("  %15s %9d  %s%n", range, counts[i], "#".repeat((int) (50 * counts[i] / largest)));
+            }
+        }
+    }
+
+    // Totals for one batch
+    public static class Summary {
+        public final Histogram scores = new Histogram();
+        public final Histogram moves = new Histogram();
+        // Games whose largest tile was 2^e, by exponent e
+        public final long[] maxTiles = new long[16];
+        public double seconds;
+
+        void addAll(Summary other) {
+            scores.addAll(other.scores);
+            moves.addAll(other.moves);
+            for (int i = 0; i < maxTiles.length; i++) {
+                maxTiles[i] += other.maxTiles[i];
+            }
+        }
+
+        public void print() {
+            long games = scores.getTotal();
+            if (seconds > 0) {
+                System.out.printf("%d games in %.1f s: %.1f games/s, %.0f moves/s%n",
+                        games, seconds, games / seconds, moves.getMean() * games / seconds);
+            } else {
+                System.out.println(games + " games");
+            }
+            scores.print("score");
+            moves.print("moves");
+            System.out.println("max tile:");
+            long reached = games;
+            for (int exponent = 1; exponent < maxTiles.length; exponent++) {
+                if (maxTiles[exponent] > 0) {
+                    System.out.printf("  %15d %9d  reached by %5.1f%%%n", 1 << exponent, maxTiles[exponent], 100.0 * reached / games);
+                }
+                reached -= maxTiles[exponent];
+            }
+        }
+    }
+
+    // Per-game results, one CSV line or one fixed-size binary record each, in the order games finish
+    public static class ResultWriter implements Closeable {
+        private final BufferedWriter csv;
+        private final DataOutputStream binary;
+
+        // Files ending in .csv are written as text, anything else in the binary format
+        public ResultWriter(Path path) throws IOException {
+            if (path.toString().endsWith(".csv")) {
+                csv = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                csv.write("game,score,max_tile,moves\n");
+                binary = null;
+            } else {
+                csv = null;
+                binary = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+                binary.write(MAGIC);
+                binary.write(VERSION);
+            }
+        }
+
+        public synchronized void write(int game, int score, int maxTile, int moves) throws IOException {
+            if (csv != null) {
+                csv.write(game + "," + score + "," + maxTile + "," + moves + "\n");
+            } else {
+                binary.writeInt(game);
+                binary.writeInt(score);
+                binary.writeByte(Integer.numberOfTrailingZeros(maxTile));
+                binary.writeInt(moves);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (csv != null) {
+                csv.close();
+            } else {
+                binary.close();
+            }
+        }
+    }
+
+    // Rebuild the summary of a binary results file, streaming it record by record
+    public static Summary summarize(Path path) throws IOException {
+        Summary summary = new Summary();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+                throw new IOException("Not a 2048 results file: " + path);
+            }
+            byte[] record = new byte[BINARY_RECORD_BYTES];
+            while (true) {
+                try {
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break; // end of file, or a record cut short by an interrupted run
+                }
+                summary.scores.add(readInt(record, 4));
+                summary.maxTiles[record[8]]++;
+                summary.moves.add(readInt(record, 9));
+            }
+        }
+        return summary;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8 | (bytes[offset + 3] & 0xff);
+    }
+
+    // Play `games` games with policies built by `policies` on `threads` threads, appending every
+    // finished game to `results` unless it is null
+    public static Summary run(Supplier<Policy> policies, int games, int threads, long seed, ResultWriter results) throws Exception {
+        SplittableRandom root = new SplittableRandom(seed);
+        int[] nextGame = {0};
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Summary total = new Summary();
+        long start = System.nanoTime();
+        try {
+            List<Future<Summary>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    Policy policy = policies.get();
+                    Summary summary = new Summary();
+                    while (true) {
+                        int game;
+                        SplittableRandom random;
+                        // Hand out game numbers and splits together so game i always gets the i-th split
+                        synchronized (root) {
+                            game = nextGame[0]++;
+                            if (game >= games) {
+                                return summary;
+                            }
+                            random = root.split();
+                        }
+                        long board = Board2048.newGame(random);
+                        int score = 0;
+                        int moves = 0;
+                        while (!Board2048.isGameOver(board)) {
+                            int direction = policy.move(board, random);
+                            score += Board2048.score(board, direction);
+                            board = Board2048.spawnTile(Board2048.move(board, direction), random);
+                            moves++;
+                        }
+                        summary.scores.add(score);
+                        summary.moves.add(moves);
+                        summary.maxTiles[Board2048.maxExponent(board)]++;
+                        if (results != null) {
+                            results.write(game, score, Board2048.maxTile(board), moves);
+                        }
+                    }
+                }));
+            }
+            for (Future<Summary> worker : workers) {
+                total.addAll(worker.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        total.seconds = (System.nanoTime() - start) / 1e9;
+        return total;
+    }
+
+    // Policies: random, greedy (most points, then most empty cells), corner (first legal slide of
+    // south, west, east, north), expectimax[:depth] or montecarlo[:rollouts], both single-threaded
+    static Supplier<Policy> policy(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "random":
+                return () -> (board, random) -> {
+                    int[] legal = new int[4];
+                    int count = 0;
+                    for (int direction = 0; direction < 4; direction++) {
+                        if (Board2048.canMove(board, direction)) {
+                            legal[count++] = direction;
+                        }
+                    }
+                    return legal[random.nextInt(count)];
+                };
+            case "greedy":
+                return () -> (board, random) -> {
+                    int best = -1;
+                    long bestValue = Long.MIN_VALUE;
+                    for (int direction = 0; direction < 4; direction++) {
+                        long next = Board2048.move(board, direction);
+                        if (next != board) {
+                            long value = (long) Board2048.score(board, direction) * Board2048.CELLS + Board2048.countEmpty(next);
+                            if (value > bestValue) {
+                                bestValue = value;
+                                best = direction;
+                            }
+                        }
+                    }
+                    return best;
+                };
+            case "corner":
+                return () -> (board, random) -> {
+                    for (int direction : new int[] {Board2048.SOUTH, Board2048.WEST, Board2048.EAST, Board2048.NORTH}) {
+                        if (Board2048.canMove(board, direction)) {
+                            return direction;
+                        }
+                    }
+                    throw new IllegalStateException("No legal slide");
+                };
+            case "expectimax":
+                int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : Game2048AI.DEFAULT_MAX_DEPTH;
+                return () -> {
+                    Game2048AI ai = new Game2048AI(depth, Game2048AI.DEFAULT_PROBABILITY_THRESHOLD, 1);
+                    return (board, random) -> ai.findBestMove(board);
+                };
+            case "montecarlo":
+                int rollouts = parts.length > 1 ? Integer.parseInt(parts[1]) : Game2048AI.DEFAULT_ROLLOUTS;
+                return () -> {
+                    Game2048AI ai = Game2048AI.monteCarlo(rollouts, 1, 0);
+                    return (board, random) -> {
+                        ai.setSeed(random.nextLong());
+                        return ai.findBestMove(board);
+                    };
+                };
+            default:
+                throw new IllegalArgumentException("Unknown 2048 policy: " + spec);
+        }
+    }
+
+    // Usage: java Game2048Batch <policy> [games] [threads] [seed] [resultsFile]
+    //        java Game2048Batch --summary <binaryResultsFile>
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && args[0].equals("--summary")) {
+            summarize(Paths.get(args[1])).print();
+            return;
+        }
+        if (args.length < 1) {
+            System.out.println("Usage: java Game2048Batch <policy> [games] [threads] [seed] [resultsFile]");
+            System.out.println("       java Game2048Batch --summary <binaryResultsFile>");
+            System.out.println("  policies: random, greedy, corner, expectimax[:depth], montecarlo[:rollouts]");
+            System.out.println("  results files ending in .csv are written as text, others in binary");
+            return;
+        }
+        Supplier<Policy> policy = policy(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        Summary summary;
+        try (ResultWriter results = args.length > 4 ? new ResultWriter(Paths.get(args[4])) : null) {
+            summary = run(policy, games, threads, seed, results);
+        }
+        System.out.println(args[0] + " (" + games + " games, " + threads + " threads, seed " + seed + ")");
+        summary.print();
+    }
+}
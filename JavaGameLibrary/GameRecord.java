@@ -0,0 +1,360 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// One finished Othello or Checkers game as a compact list of moves from the standard start position,
+// plus an append-only binary file format holding any number of them.
+// A file starts with the magic "JGLR" and a version byte, followed by records that are each an unsigned
+// varint payload length and then the payload: game type, winner (0 for a draw or an unfinished game)
+// and one byte per move. Othello moves are the square 0-63 or 64 for a pass; Checkers moves are single
+// steps packed as from square (bits 0-4), direction (bits 5-6) and a jump flag (bit 7).
+// A typical game takes 60 to 100 bytes, so a million games fit in about 100 MB.
+public class GameRecord {
+    public static final int OTHELLO = 1;
+    public static final int CHECKERS = 2;
+
+    private static final byte[] MAGIC = {'J', 'G', 'L', 'R'};
+    private static final int VERSION = 1;
+    private static final int OTHELLO_PASS = 64;
+
+    private final int game;
+    private final int winner;
+    private final byte[] moves;
+
+    public GameRecord(int game, int winner, byte[] moves) {
+        this.game = game;
+        this.winner = winner;
+        this.moves = moves;
+    }
+
+    public int getGame() {
+        return game;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getMove(int index) {
+        return moves[index] & 0xff;
+    }
+
+    // Othello square 0-63 or OthelloBoard.PASS as a move byte
+    public static int encodeOthello(int square) {
+        return square == OthelloBoard.PASS ? OTHELLO_PASS : square;
+    }
+
+    public static int decodeOthello(int move) {
+        return move == OTHELLO_PASS ? OthelloBoard.PASS : move;
+    }
+
+    // CheckersBoard step as a move byte
+    public static int encodeCheckers(int step) {
+        int from = CheckersBoard.fromOf(step);
+        int to = CheckersBoard.toOf(step);
+        int dir = (CheckersBoard.rowOf(to) > CheckersBoard.rowOf(from) ? 2 : 0)
+                + (CheckersBoard.colOf(to) > CheckersBoard.colOf(from) ? 1 : 0);
+        return from | dir << 5 | (CheckersBoard.isJump(step) ? 1 << 7 : 0);
+    }
+
+    // CheckersBoard step for a move byte, or -1 if it walks off the board
+    public static int decodeCheckers(int move) {
+        int from = move & 0x1f;
+        int dir = (move >>> 5) & 3;
+        int to = CheckersBoard.neighbour(from, dir);
+        if (to >= 0 && (move & (1 << 7)) != 0) {
+            to = CheckersBoard.neighbour(to, dir);
+        }
+        return to < 0 ? -1 : CheckersBoard.step(from, to);
+    }
+
+    // Collects the moves of a game in progress
+    public static class Builder {
+        private final int game;
+        private byte[] moves = new byte[128];
+        private int size;
+
+        public Builder(int game) {
+            this.game = game;
+        }
+
+        public void add(int move) {
+            if (size == moves.length) {
+                moves = Arrays.copyOf(moves, 2 * size);
+            }
+            moves[size++] = (byte) move;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public GameRecord finish(int winner) {
+            return new GameRecord(game, winner, Arrays.copyOf(moves, size));
+        }
+    }
+
+    // Appends records to a file, writing the header first if the file is new or empty.
+    // append is synchronized, so one writer can be shared by several threads.
+    public static class Writer implements Closeable {
+        private final OutputStream out;
+
+        public Writer(Path path) throws IOException {
+            boolean fresh = !Files.exists(path) || Files.size(path) == 0;
+            if (!fresh) {
+                checkHeader(path);
+            }
+            out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+            if (fresh) {
+                out.write(MAGIC);
+                out.write(VERSION);
+            }
+        }
+
+        public synchronized void append(GameRecord record) throws IOException {
+            int length = 2 + record.moves.length;
+            while (length >= 0x80) {
+                out.write(length & 0x7f | 0x80);
+                length >>>= 7;
+            }
+            out.write(length);
+            out.write(record.game);
+            out.write(record.winner);
+            out.write(record.moves);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // Append a single record, e.g. when a game in one of the frames ends
+    public static void append(Path path, GameRecord record) throws IOException {
+        try (Writer writer = new Writer(path)) {
+            writer.append(record);
+        }
+    }
+
+    private static void checkHeader(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            readHeader(new DataInputStream(in), path);
+        }
+    }
+
+    private static void readHeader(DataInputStream in, Path path) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Not a game record file: " + path);
+        }
+    }
+
+    // Streams the records of a file one at a time through a small buffer
+    public static class Reader implements Closeable {
+        private final DataInputStream in;
+
+        public Reader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            readHeader(in, path);
+        }
+
+        // The next record, or null at the end of the file. A record cut short by an interrupted
+        // write at the very end is treated as the end of the file.
+        public GameRecord next() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            try {
+                int length = 0;
+                int shift = 0;
+                for (int b = first; ; b = in.readUnsignedByte(), shift += 7) {
+                    length |= (b & 0x7f) << shift;
+                    if ((b & 0x80) == 0) {
+                        break;
+                    }
+                }
+                int game = in.readUnsignedByte();
+                int winner = in.readUnsignedByte();
+                byte[] moves = new byte[length - 2];
+                in.readFully(moves);
+                return new GameRecord(game, winner, moves);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Replay an Othello record from the start position, returning the final position.
+    // Throws IllegalArgumentException on an illegal move.
+    public static OthelloBoard replayOthello(GameRecord record) {
+        OthelloBoard board = new OthelloBoard();
+        for (int i = 0; i < record.moves.length; i++) {
+            int square = decodeOthello(record.getMove(i));
+            if (square == OthelloBoard.PASS) {
+                if (board.legalMoves() != 0) {
+                    throw new IllegalArgumentException("Pass with a legal move available at move " + i);
+                }
+                board.pass();
+            } else if (square < 64 && board.isValidMove(square / 8, square % 8)) {
+                board.play(square / 8, square % 8);
+            } else {
+                throw new IllegalArgumentException("Illegal Othello move " + square + " at move " + i);
+            }
+        }
+        return board;
+    }
+
+    // Replay a Checkers record from the start position, returning the final position.
+    // Throws IllegalArgumentException on an illegal step.
+    public static CheckersBoard replayCheckers(GameRecord record) {
+        CheckersBoard board = new CheckersBoard();
+        for (int i = 0; i < record.moves.length; i++) {
+            int step = decodeCheckers(record.getMove(i));
+            if (step < 0 || !board.isValidStep(step)) {
+                throw new IllegalArgumentException("Illegal Checkers step " + record.getMove(i) + " at move " + i);
+            }
+            board.makeStep(step);
+        }
+        return board;
+    }
+
+    private static int othelloWinner(OthelloBoard board) {
+        int difference = board.countPieces(1) - board.countPieces(2);
+        return difference > 0 ? 1 : difference < 0 ? 2 : 0;
+    }
+
+    // Usage: java GameRecord <file> [othelloEngine] [checkersEngine]
+    // Replays every game in the file, checks each move and the recorded winner, and reports the results.
+    // With engines (in Arena's notation) it also reports how often each engine picks the recorded move.
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java GameRecord <file> [othelloEngine] [checkersEngine]");
+            return;
+        }
+        Arena.Engine<OthelloBoard> othelloEngine = args.length > 1 ? Arena.othelloEngine(args[1]).apply(1) : null;
+        Arena.Engine<CheckersBoard> checkersEngine = args.length > 2 ? Arena.checkersEngine(args[2]).apply(1) : null;
+        long[][] winners = new long[3][3]; // [game][winner]
+        long games = 0;
+        long moves = 0;
+        long invalid = 0;
+        long positions = 0;
+        long agreed = 0;
+        long start = System.nanoTime();
+        try (Reader reader = new Reader(Paths.get(args[0]))) {
+            for (GameRecord record = reader.next(); record != null; record = reader.next()) {
+                games++;
+                moves += record.getMoveCount();
+                try {
+                    int winner;
+                    if (record.game == OTHELLO) {
+                        OthelloBoard board = replayOthello(record);
+                        winner = board.isGameOver() ? othelloWinner(board) : 0;
+                        if (othelloEngine != null) {
+                            long[] counts = agreement(record, othelloEngine);
+                            positions += counts[0];
+                            agreed += counts[1];
+                        }
+                    } else if (record.game == CHECKERS) {
+                        winner = replayCheckers(record).getWinner();
+                        if (checkersEngine != null) {
+                            long[] counts = agreement(record, checkersEngine);
+                            positions += counts[0];
+                            agreed += counts[1];
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Unknown game type " + record.game);
+                    }
+                    if (winner != record.winner) {
+                        throw new IllegalArgumentException("Recorded winner " + record.winner + ", replay gives " + winner);
+                    }
+                    winners[record.game][winner]++;
+                } catch (IllegalArgumentException e) {
+                    invalid++;
+                    System.out.println("Game " + games + ": " + e.getMessage());
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games, %,d moves in %.2f s (%,.0f games/s, %,.0f moves/s), %d invalid%n",
+                games, moves, seconds, games / seconds, moves / seconds, invalid);
+        String[] names = {"", "Othello", "Checkers"};
+        for (int game = OTHELLO; game <= CHECKERS; game++) {
+            long total = winners[game][0] + winners[game][1] + winners[game][2];
+            if (total > 0) {
+                System.out.printf("%-9s %,d games: player 1 %,d, player 2 %,d, draws %,d%n",
+                        names[game], total, winners[game][1], winners[game][2], winners[game][0]);
+            }
+        }
+        if (positions > 0) {
+            System.out.printf("Engine agreed with the recorded move in %,d of %,d positions (%.1f%%)%n",
+                    agreed, positions, 100.0 * agreed / positions);
+        }
+    }
+
+    // Positions where `engine` was asked, and how many times it chose the recorded move
+    private static long[] agreement(GameRecord record, Arena.Engine<?> engine) {
+        long[] counts = new long[2];
+        if (record.game == OTHELLO) {
+            @SuppressWarnings("unchecked")
+            Arena.Engine<OthelloBoard> othello = (Arena.Engine<OthelloBoard>) engine;
+            OthelloBoard board = new OthelloBoard();
+            for (int i = 0; i < record.moves.length; i++) {
+                int square = decodeOthello(record.getMove(i));
+                if (square != OthelloBoard.PASS) {
+                    OthelloBoard scratch = board.copy();
+                    long before = scratch.getDiscs(1) | scratch.getDiscs(2);
+                    othello.move(scratch);
+                    long placed = (scratch.getDiscs(1) | scratch.getDiscs(2)) & ~before;
+                    counts[0]++;
+                    counts[1] += placed == 1L << square ? 1 : 0;
+                    board.play(square / 8, square % 8);
+                } else {
+                    board.pass();
+                }
+            }
+        } else {
+            @SuppressWarnings("unchecked")
+            Arena.Engine<CheckersBoard> checkers = (Arena.Engine<CheckersBoard>) engine;
+            CheckersBoard board = new CheckersBoard();
+            for (int i = 0; i < record.moves.length; ) {
+                // Ask once per turn and compare whole turns: two multi-jumps can share their first steps
+                CheckersBoard scratch = board.copy();
+                do {
+                    checkers.move(scratch);
+                } while (scratch.getJumpingSquare() >= 0 && !scratch.isGameOver());
+                int turnStart = i;
+                do {
+                    board.makeStep(decodeCheckers(record.getMove(i++)));
+                } while (i < record.moves.length && board.getJumpingSquare() >= 0);
+                boolean same = scratch.getHistorySize() == i - turnStart;
+                for (int j = 0; same && j < scratch.getHistorySize(); j++) {
+                    same = scratch.getStep(j) == board.getStep(turnStart + j);
+                }
+                counts[0]++;
+                counts[1] += same ? 1 : 0;
+            }
+        }
+        return counts;
+    }
+}
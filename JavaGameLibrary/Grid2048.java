@@ -0,0 +1,235 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+// Headless 2048 engine for square boards from 3x3 to 8x8.
+// Cells are tile exponents in a flat byte array indexed row * size + col, 0 for an empty cell.
+// A slide walks every line of the board in the slide direction with a read and a write index, so no
+// direction needs the board rotated or copied first. The walk for each direction is described by
+// where its lines start and how far apart consecutive cells are, worked out once per board size.
+// Board2048 stays the faster engine for the classic 4x4 game; this one trades its lookup tables for
+// a loop that works the same way on any size.
+// On a 4x4 board the rules are Board2048's, so two 32768 tiles (exponent 15) do not merge and the
+// board always packs into a long; larger boards merge up to the largest exponent a byte holds.
+public class Grid2048 {
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 8;
+
+    private final int size;
+    private final byte[] cells;
+    // Tiles of this exponent or above stay apart
+    private final int mergeLimit;
+    // Per Board2048 direction: index of the first cell of line 0, step to the next line, and step
+    // to the next cell along a line
+    private final int[] lineStart = new int[4];
+    private final int[] lineStride = new int[4];
+    private final int[] cellStride = new int[4];
+    private long score;
+
+    public Grid2048(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+        this.cells = new byte[size * size];
+        this.mergeLimit = size == Board2048.SIZE ? 15 : Byte.MAX_VALUE;
+        setWalk(Board2048.NORTH, 0, 1, size);
+        setWalk(Board2048.SOUTH, (size - 1) * size, 1, -size);
+        setWalk(Board2048.EAST, size - 1, size, -1);
+        setWalk(Board2048.WEST, 0, size, 1);
+    }
+
+    private void setWalk(int direction, int start, int lineStep, int cellStep) {
+        lineStart[direction] = start;
+        lineStride[direction] = lineStep;
+        cellStride[direction] = cellStep;
+    }
+
+    public Grid2048 copy() {
+        Grid2048 copy = new Grid2048(size);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        copy.score = score;
+        return copy;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Points scored so far: the sum of the values of all merged tiles
+    public long getScore() {
+        return score;
+    }
+
+    public int getExponent(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    // Tile value at the cell, 0 when empty
+    public long getTile(int row, int col) {
+        int exponent = cells[row * size + col];
+        return exponent == 0 ? 0 : 1L << exponent;
+    }
+
+    public void setExponent(int row, int col, int exponent) {
+        cells[row * size + col] = (byte) exponent;
+    }
+
+    // Empty the board, reset the score and spawn the two starting tiles
+    public void newGame(RandomGenerator random) {
+        Arrays.fill(cells, (byte) 0);
+        score = 0;
+        spawnTile(random);
+        spawnTile(random);
+    }
+
+    // Slide all tiles in one of the Board2048 directions, merging each equal pair once.
+    // Returns whether anything moved; the points scored are added to the score.
+    public boolean move(int direction) {
+        int cellStep = cellStride[direction];
+        int lineStep = lineStride[direction];
+        boolean moved = false;
+        for (int line = 0, start = lineStart[direction]; line < size; line++, start += lineStep) {
+            int write = start;
+            boolean mergeable = false;
+            for (int i = 0, read = start; i < size; i++, read += cellStep) {
+                byte tile = cells[read];
+                if (tile == 0) {
+                    continue;
+                }
+                cells[read] = 0;
+                if (mergeable && cells[write - cellStep] == tile && tile < mergeLimit) {
+                    cells[write - cellStep] = (byte) (tile + 1);
+                    score += 1L << (tile + 1);
+                    mergeable = false;
+                    moved = true;
+                } else {
+                    cells[write] = tile;
+                    moved |= write != read;
+                    write += cellStep;
+                    mergeable = true;
+                }
+            }
+        }
+        return moved;
+    }
+
+    // Whether a slide in the direction would move anything, without making it: some line has a gap
+    // in front of a tile, or two equal tiles next to each other
+    public boolean canMove(int direction) {
+        int cellStep = cellStride[direction];
+        int lineStep = lineStride[direction];
+        for (int line = 0, start = lineStart[direction]; line < size; line++, start += lineStep) {
+            byte previous = cells[start];
+            for (int i = 1, read = start + cellStep; i < size; i++, read += cellStep) {
+                byte tile = cells[read];
+                if (tile != 0 && (previous == 0 || previous == tile && tile < mergeLimit)) {
+                    return true;
+                }
+                previous = tile;
+            }
+        }
+        return false;
+    }
+
+    public boolean isGameOver() {
+        for (int direction = 0; direction < 4; direction++) {
+            if (canMove(direction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int countEmpty() {
+        int empty = 0;
+        for (byte cell : cells) {
+            if (cell == 0) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+    public int maxExponent() {
+        int max = 0;
+        for (byte cell : cells) {
+            max = Math.max(max, cell);
+        }
+        return max;
+    }
+
+    // Place a 2 (90%) or a 4 (10%) on a random empty cell; nothing happens when the board is full
+    public void spawnTile(RandomGenerator random) {
+        int empty = countEmpty();
+        if (empty == 0) {
+            return;
+        }
+        int target = random.nextInt(empty);
+        byte exponent = (byte) (random.nextInt(10) < 9 ? 1 : 2);
+        for (int i = 0; ; i++) {
+            if (cells[i] == 0 && target-- == 0) {
+                cells[i] = exponent;
+                return;
+            }
+        }
+    }
+
+    // Packed Board2048 form of a 4x4 board, e.g. to ask Game2048AI for a move
+    public long toPacked() {
+        if (size != Board2048.SIZE) {
+            throw new IllegalStateException("Only 4x4 boards can be packed: " + size + "x" + size);
+        }
+        long board = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] > 15) {
+                throw new IllegalStateException("Exponent " + cells[i] + " does not fit a packed board");
+            }
+            board |= (long) cells[i] << (4 * i);
+        }
+        return board;
+    }
+
+    // Slide throughput per board size: random mid-game boards are slid in every direction, and the
+    // best time per cell over several rounds is reported so the sizes can be compared directly.
+    // Usage: java Grid2048 [seed]
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 7);
+        long sink = 0;
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+            Grid2048[] corpus = new Grid2048[1024];
+            for (int i = 0; i < corpus.length; i++) {
+                Grid2048 grid = new Grid2048(size);
+                grid.newGame(random);
+                int moves = random.nextInt(20 * size * size);
+                for (int m = 0; m < moves && !grid.isGameOver(); m++) {
+                    if (grid.move(random.nextInt(4))) {
+                        grid.spawnTile(random);
+                    }
+                }
+                corpus[i] = grid;
+            }
+            Grid2048[] scratch = new Grid2048[corpus.length];
+            for (int i = 0; i < corpus.length; i++) {
+                scratch[i] = corpus[i].copy();
+            }
+            double best = Double.MAX_VALUE;
+            int passes = 200;
+            for (int round = 0; round < 10; round++) {
+                long start = System.nanoTime();
+                for (int pass = 0; pass < passes; pass++) {
+                    for (int i = 0; i < corpus.length; i++) {
+                        Grid2048 grid = scratch[i];
+                        for (int direction = 0; direction < 4; direction++) {
+                            System.arraycopy(corpus[i].cells, 0, grid.cells, 0, grid.cells.length);
+                            sink += grid.move(direction) ? 1 : 0;
+                        }
+                    }
+                }
+                best = Math.min(best, (double) (System.nanoTime() - start) / ((long) passes * corpus.length * 4));
+            }
+            System.out.printf("%dx%d: %7.1f ns/move %6.2f ns/cell%n", size, size, best, best / (size * size));
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -1,16 +1,35 @@
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.swing.*;
 
 public class Othello extends JFrame {
     private final int TILE_SIZE = 50;
     private final int GRID_SIZE = 8;
-    private final String[][] board = new String[GRID_SIZE][GRID_SIZE];
+    private final OthelloBoard board = new OthelloBoard();
+    // Thinking time per AI move, hash table size and search threads, override with
+    // -Dothello.ai.millis=<ms>, -Dothello.ai.hashmb=<megabytes> and -Dothello.ai.threads=<count>
+    private final OthelloAI ai = new OthelloAI(Long.getLong("othello.ai.millis", 1000),
+            Integer.getInteger("othello.ai.hashmb", 16),
+            Integer.getInteger("othello.ai.threads", Runtime.getRuntime().availableProcessors()));
+    // Switch to perfect play once this many empty squares are left, override with -Dothello.ai.endgame=<empties>
+    private final int endgameEmpties = Integer.getInteger("othello.ai.endgame", 20);
+    private final OthelloEndgameSolver endgameSolver = new OthelloEndgameSolver();
+    // Opening book answering the first moves instantly, read from -Dothello.book=<file> (default othello.book)
+    private final OthelloOpeningBook openingBook = loadOpeningBook();
+    // The AI thinks on a background thread; -Dothello.ai.maxmillis=<ms> caps every move, endgame solving included
+    private final BackgroundSearch search = new BackgroundSearch("Othello AI", Long.getLong("othello.ai.maxmillis", 30000));
+    private volatile boolean solvingEndgame = false;
+    // Finished games are appended to -Dothello.record=<file> in GameRecord format when it is set
+    private final String recordFile = System.getProperty("othello.record");
+    private final GameRecord.Builder record = new GameRecord.Builder(GameRecord.OTHELLO);
     private final JButton[][] tiles = new JButton[GRID_SIZE][GRID_SIZE];
     private boolean isSinglePlayer = false;
     private int currentPlayer = 1;
-    private int passingTurns = 0;
     private final JLabel currentPlayerLabel = new JLabel("Current Player: 1", SwingConstants.CENTER);
     private final JLabel player1Label = new JLabel("",SwingConstants.CENTER);
     private final JLabel player2Label = new JLabel("",SwingConstants.CENTER);
@@ -23,10 +42,9 @@ public class Othello extends JFrame {
     private void initializeBoard() {
         clearGameBoard();
         // Set initial pieces
-        board[3][3] = "1";
-        board[3][4] = "2";
-        board[4][3] = "2";
-        board[4][4] = "1";
+        board.reset();
+        record.clear();
+        currentPlayer = board.getCurrentPlayer();
         // Set the initial pieces on the board
         tiles[3][3].setText("●");
         tiles[3][3].setForeground(Color.BLACK);
@@ -43,7 +61,6 @@ public class Othello extends JFrame {
     private void clearGameBoard() {
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                board[row][col] = null; // empty cell
                 tiles[row][col].setText(""); // clear UI cell
             }
         }
@@ -51,82 +68,21 @@ public class Othello extends JFrame {
 
     // A valid move must capture at least one opponent's piece in any direction
     private boolean isValidMove(int row, int col) {
-        // Check if the cell is empty
-        if (board[row][col] != null) {
-            return false;
-        }
-        int[][] directions = {
-            {-1, 0}, {1, 0}, {0, -1}, {0, 1}, // vertical and horizontal
-            {-1, -1}, {-1, 1}, {1, -1}, {1, 1} // diagonals
-        };
-        for (int[] dir : directions) {
-            int dRow = dir[0];
-            int dCol = dir[1];
-            int r = row + dRow;
-            int c = col + dCol;
-            boolean hasOpponentPiece = false;
-            while (r >= 0 && r < GRID_SIZE && c >= 0 && c < GRID_SIZE) {
-                if (board[r][c] == null) {
-                    break; // empty cell, stop checking this direction
-                } else if (board[r][c].equals(String.valueOf(currentPlayer))) {
-                    if (hasOpponentPiece) {
-                        return true; // valid move found
-                    } else {
-                        break; // no opponent pieces in between, stop checking this direction
-                    }
-                } else {
-                    hasOpponentPiece = true; // found an opponent piece
-                }
-                r += dRow;
-                c += dCol;
-            }
-        }
-        return false; // no valid move found in any direction
+        return board.isValidMove(row, col);
     }
 
-    // Flip opponent pieces in all directions after placing a piece
-    // Both on internal game board and on the UI
-    private void flipPieces(int row, int col) {
-        int[][] directions = {
-            {-1, 0}, {1, 0}, {0, -1}, {0, 1}, // vertical and horizontal
-            {-1, -1}, {-1, 1}, {1, -1}, {1, 1} // diagonals
-        };
-        for (int[] dir : directions) {
-            int dRow = dir[0];
-            int dCol = dir[1];
-            int r = row + dRow;
-            int c = col + dCol;
-            boolean hasOpponentPiece = false;
-            while (r >= 0 && r < GRID_SIZE && c >= 0 && c < GRID_SIZE) {
-                if (board[r][c] == null) {
-                    break; // empty cell, stop checking this direction
-                } else if (board[r][c].equals(String.valueOf(currentPlayer))) {
-                    if (hasOpponentPiece) {
-                        // Flip opponent pieces in this direction
-                        while (r != row || c != col) {
-                            board[r][c] = String.valueOf(currentPlayer);
-                            tiles[r][c].setText("●");
-                            tiles[r][c].setForeground(currentPlayer == 1 ? Color.BLACK : Color.WHITE);
-                            r -= dRow;
-                            c -= dCol;
-                        }
-                        break; // valid move found in this direction
-                    } else {
-                        break; // no opponent pieces in between, stop checking this direction
-                    }
-                } else {
-                    hasOpponentPiece = true; // found an opponent piece
-                }
-                r += dRow;
-                c += dCol;
-            }
+    // Flip the captured opponent pieces on the UI
+    private void flipPieces(long flipped) {
+        for (long rest = flipped; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            updateUI(square / GRID_SIZE, square % GRID_SIZE);
         }
     }
 
     // Place a piece on the board and flip opponent pieces 
     private void placePiece(int row, int col) {
-        board[row][col] = (currentPlayer == 1) ? "1" : "2";
-        flipPieces(row,col);
+        flipPieces(board.play(row, col));
+        record.add(GameRecord.encodeOthello(row * GRID_SIZE + col));
     }
 
     // Update the UI to show the placed piece
@@ -137,20 +93,12 @@ public class Othello extends JFrame {
 
     // Count the number of pieces for the given player
     private int countPieces(int player) {
-        int count = 0;
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col] != null && board[row][col].equals(String.valueOf(player))) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return board.countPieces(player);
     }
 
     // Switch the current player & update the UI
     private void switchPlayer() {
-        currentPlayer = (currentPlayer == 1) ? 2 : 1;
+        currentPlayer = board.getCurrentPlayer();
         currentPlayerLabel.setText("Player " + currentPlayer + "'s Turn");
         currentPlayerLabel.setForeground(currentPlayer == 1 ? Color.BLACK : Color.WHITE);
     }
@@ -167,9 +115,17 @@ public class Othello extends JFrame {
         } 
     }
 
-    // AI move for single-player mode ()
+    // AI move for single-player mode, searched on a copy of the board off the event dispatch thread
     private void aiMove() {
-        int[] bestMove = getBestMove();
+        if (search.isRunning()) {
+            return;
+        }
+        OthelloBoard position = board.copy();
+        search.start(() -> getBestMove(position), this::stopThinking, this::thinkingProgress, this::playAiMove);
+    }
+
+    // Play the move the AI picked, back on the event dispatch thread
+    private void playAiMove(int[] bestMove) {
         if (bestMove[0] != -1 && bestMove[1] != -1) {
             placePiece(bestMove[0], bestMove[1]);
             updateUI(bestMove[0], bestMove[1]);
@@ -177,137 +133,92 @@ public class Othello extends JFrame {
             player1Label.setText("Player 1: " + countPieces(1));
             player2Label.setText("Player 2: " + countPieces(2));
             checkGameState();
+            // Move again if the human player had to pass
+            if (currentPlayer == 2 && !board.isGameOver()) {
+                Timer timer = new Timer(2000, event -> aiMove());
+                timer.setRepeats(false);
+                timer.start();
+            }
         } 
     }
 
-    // Helper method that determines the best move for the AI
-    private int[] getBestMove() {
-        int bestRow = -1, bestCol = -1;
-        int maxFlips = 0;
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (isValidMove(row, col)) {
-                    int flips = countFlips(row, col);
-                    if (flips > maxFlips) {
-                        maxFlips = flips;
-                        bestRow = row;
-                        bestCol = col;
-                    }
-                }
-            }
+    // Helper method that determines the best move for the AI; runs on the search thread
+    private int[] getBestMove(OthelloBoard position) {
+        int square = openingBook != null ? openingBook.lookup(position) : OthelloOpeningBook.NO_MOVE;
+        // Book moves are played as they are; otherwise solve the endgame or search
+        if (square == OthelloOpeningBook.NO_MOVE && position.countEmpty() <= endgameEmpties) {
+            solvingEndgame = true;
+            square = endgameSolver.findBestMove(position);
+            solvingEndgame = false;
+        } else if (square == OthelloOpeningBook.NO_MOVE) {
+            square = ai.findBestMove(position);
+        }
+        if (square == OthelloBoard.PASS) {
+            return new int[]{-1, -1};
         }
-        return new int[]{bestRow, bestCol};
+        return new int[]{square / GRID_SIZE, square % GRID_SIZE};
     }
 
-    // Count the number of pieces that would be flipped if a piece is placed at (row, col)
-    private int countFlips(int row, int col) {
-        int flips = 0;
-        int[][] directions = {
-            {-1, 0}, {1, 0}, {0, -1}, {0, 1}, // vertical and horizontal
-            {-1, -1}, {-1, 1}, {1, -1}, {1, 1} // diagonals
-        };
-        for (int[] dir : directions) {
-            int dRow = dir[0];
-            int dCol = dir[1];
-            int r = row + dRow;
-            int c = col + dCol;
-            boolean hasOpponentPiece = false;
-            while (r >= 0 && r < GRID_SIZE && c >= 0 && c < GRID_SIZE) {
-                if (board[r][c] == null) {
-                    break; // empty cell, stop checking this direction
-                } else if (board[r][c].equals(String.valueOf(currentPlayer))) {
-                    if (hasOpponentPiece) {
-                        flips += countFlipsInDirection(row, col, dRow, dCol);
-                        break; // valid move found in this direction
-                    } else {
-                        break; // no opponent pieces in between, stop checking this direction
-                    }
-                } else {
-                    hasOpponentPiece = true; // found an opponent piece
-                }
-                r += dRow;
-                c += dCol;
-            }
+    // Cut the current search short; the AI plays the best move it has so far
+    private void stopThinking() {
+        ai.stop();
+        endgameSolver.stop();
+    }
+
+    private String thinkingProgress() {
+        if (solvingEndgame) {
+            return String.format("Solving endgame: %,d nodes", endgameSolver.getNodes());
         }
-        return flips;
+        return String.format("Thinking: depth %d, %,d nodes", ai.getCompletedDepth(), ai.getNodes());
     }
 
-    // Count the number of pieces that would be flipped in a specific direction
-    private int countFlipsInDirection(int row, int col, int dRow, int dCol) {
-        int flips = 0;
-        int r = row + dRow;
-        int c = col + dCol;
-        while (r >= 0 && r < GRID_SIZE && c >= 0 && c < GRID_SIZE) {
-            if (board[r][c] == null) {
-                break; // empty cell, stop checking this direction
-            } else if (board[r][c].equals(String.valueOf(currentPlayer))) {
-                return flips; // valid move found in this direction
-            } else {
-                flips++; // found an opponent piece to flip
-            }
-            r += dRow;
-            c += dCol;
+    // Load the opening book if one is available; the AI simply searches without it
+    private static OthelloOpeningBook loadOpeningBook() {
+        Path path = Paths.get(System.getProperty("othello.book", "othello.book"));
+        if (!Files.isReadable(path)) {
+            return null;
+        }
+        try {
+            return OthelloOpeningBook.open(path);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Could not load opening book " + path + ": " + e.getMessage());
+            return null;
         }
-        return 0; // no valid move found in this direction
     }
 
-    // Check if the game is over or a player no longer has valid moves 
+    // Check if the game is over or the player to move has to pass.
+    // The engine tracks disc and empty counts incrementally, so these checks never rescan the board.
     private void checkGameState() {
-        boolean hasValidMove = false;
-        
-        // Check if any player can make a valid move
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col] == null) {
-                    if (isValidMove(row, col)) {
-                        hasValidMove = true;
-                        break;
-                    }
-                }
-            }
-            if (hasValidMove) {
-                break;
-            }
+        // End the game if the board is full or neither player has a valid move
+        if (board.isGameOver()) {
+            gameOver();
+            return;
         }
-    
-        // If neither player has a valid move, increment passing turns
-        if (!hasValidMove) {
-            passingTurns++;
-            if (passingTurns == 2) {
-                gameOver(); // Both players have passed, game over
-            } else {
-                // Switch to the other player and reset passing turns if needed
-                switchPlayer();
-                passingTurns = 0; // Reset passing turns after switching players
-            }
+        // The player to move has no valid move, so the turn passes to the other player
+        if (!board.hasLegalMove(board.getCurrentPlayer())) {
+            board.pass();
+            record.add(GameRecord.encodeOthello(OthelloBoard.PASS));
+            switchPlayer();
         }
-    
-        // If board is full, end the game
-        boolean boardFull = true;
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (board[row][col] == null) {
-                    boardFull = false;
-                    break;
-                }
-            }
-            if (!boardFull) {
-                break;
-            }
+    }
+
+    private void saveGameRecord(int winner) {
+        if (recordFile == null) {
+            return;
         }
-    
-        // End the game if the board is full or there are no valid moves
-        if (boardFull || passingTurns == 2) {
-            gameOver();
+        try {
+            GameRecord.append(Paths.get(recordFile), record.finish(winner));
+        } catch (IOException e) {
+            System.out.println("Could not save game record to " + recordFile + ": " + e.getMessage());
         }
     }
-    
 
     // Display game over message and prompt for restart or the main menu
     private void gameOver() {
         int player1Count = countPieces(1);
         int player2Count = countPieces(2);
         String winner = (player1Count > player2Count) ? "Player 1" : (player2Count > player1Count) ? "Player 2" : "Draw";
+        saveGameRecord(player1Count > player2Count ? 1 : player2Count > player1Count ? 2 : 0);
         String message = "Game Over! " + winner + " wins!\n" +
                 "Player 1: " + player1Count + "\n" +
                 "Player 2: " + player2Count;
@@ -327,7 +238,7 @@ public class Othello extends JFrame {
         JFrame frame = new JFrame("Othello");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLocationRelativeTo(null);
-        frame.setSize(500, 550);
+        frame.setSize(500, isSinglePlayer ? 590 : 550);
         frame.setLayout(new BorderLayout());
         // Score panel at the top
         JPanel scorePanel = new JPanel();
@@ -365,7 +276,13 @@ public class Othello extends JFrame {
         // Add components to the frame
         frame.add(scorePanel, BorderLayout.NORTH);
         frame.add(boardPanel, BorderLayout.CENTER);
-        frame.add(currentPlayerLabel, BorderLayout.SOUTH);
+        // Turn label, with the AI progress and Move Now button under it in single-player mode
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(currentPlayerLabel, BorderLayout.CENTER);
+        if (isSinglePlayer) {
+            statusPanel.add(search.getPanel(), BorderLayout.SOUTH);
+        }
+        frame.add(statusPanel, BorderLayout.SOUTH);
         frame.setVisible(true);
     }
 
@@ -377,7 +294,11 @@ public class Othello extends JFrame {
         }
         @Override
         public void actionPerformed(ActionEvent e) {
-            if (board[row][col] == null) {
+            // The board belongs to the AI while it is thinking
+            if (isSinglePlayer && (currentPlayer == 2 || search.isRunning())) {
+                return;
+            }
+            if (board.isEmpty(row, col)) {
                 System.out.println("Clicked on cell: " + row + ", " + col);
                 handlePlayerMove(row, col);
                 if (isSinglePlayer && currentPlayer == 2) {
@@ -385,7 +306,6 @@ public class Othello extends JFrame {
                     timer.setRepeats(false); 
                     timer.start(); 
                 }
-                passingTurns = 0; // Reset passing turns after a valid move
             }
         }
     }
@@ -0,0 +1,455 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Othello opponent using iterative-deepening negamax with alpha-beta pruning.
+// Each call to findBestMove searches until its wall-clock budget runs out and then
+// returns the best move of the deepest iteration that produced a result.
+// Results are cached in a transposition table that is kept across moves of the same game.
+public class OthelloAI {
+    private static final int MAX_DEPTH = 60;
+    private static final int INFINITY = 1_000_000;
+    private static final int WIN_SCORE = 100_000;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private static final long CORNERS = 0x8100000000000081L;
+    private static final long EDGE_ROWS = 0xff000000000000ffL;
+    private static final long EDGE_COLS = 0x8181818181818181L;
+    private static final long EDGES = EDGE_ROWS | EDGE_COLS;
+
+    // Static square values used to order moves near the leaves
+    private static final int[] SQUARE_WEIGHTS = {
+        100, -20, 10,  5,  5, 10, -20, 100,
+        -20, -50, -2, -2, -2, -2, -50, -20,
+         10,  -2,  1,  1,  1,  1,  -2,  10,
+          5,  -2,  1,  0,  0,  1,  -2,   5,
+          5,  -2,  1,  0,  0,  1,  -2,   5,
+         10,  -2,  1,  1,  1,  1,  -2,  10,
+        -20, -50, -2, -2, -2, -2, -50, -20,
+        100, -20, 10,  5,  5, 10, -20, 100
+    };
+
+    private final long timeBudgetMillis;
+    private final OthelloTranspositionTable table; // null when hashing is disabled
+    private final Worker[] workers;
+    private final ForkJoinPool pool; // helper threads, null when searching on one thread
+    private volatile boolean stopped;
+    private long deadline;
+
+    public OthelloAI(long timeBudgetMillis) {
+        this(timeBudgetMillis, 16);
+    }
+
+    // hashMegabytes bounds the transposition table; 0 searches without one
+    public OthelloAI(long timeBudgetMillis, int hashMegabytes) {
+        this(timeBudgetMillis, hashMegabytes, 1);
+    }
+
+    // With more than one thread the search runs lazy SMP: helper threads search the same root
+    // at staggered depths and only share results through the transposition table.
+    // A single thread searches on the caller's thread and is fully deterministic for a fixed depth.
+    public OthelloAI(long timeBudgetMillis, int hashMegabytes, int threads) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.table = hashMegabytes > 0 ? new OthelloTranspositionTable(hashMegabytes) : null;
+        this.workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+        this.pool = workers.length > 1 ? new ForkJoinPool(workers.length - 1) : null;
+    }
+
+    // Release the helper threads; the AI must not be used afterwards
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Ask a running search to finish now with the best move found so far; safe to call from any thread
+    public void stop() {
+        stopped = true;
+    }
+
+    public OthelloTranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    // Nodes searched by all threads during the last call to findBestMove.
+    // Can be polled while a search runs, the count is then only approximate.
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    // Transposition table probes and hits summed over all threads during the last call to
+    // findBestMove; only exact once the search has returned
+    public long getTableProbes() {
+        long probes = 0;
+        for (Worker worker : workers) {
+            probes += worker.tableProbes;
+        }
+        return probes;
+    }
+
+    public long getTableHits() {
+        long hits = 0;
+        for (Worker worker : workers) {
+            hits += worker.tableHits;
+        }
+        return hits;
+    }
+
+    public int getCompletedDepth() {
+        return workers[0].completedDepth;
+    }
+
+    // Score of the deepest completed iteration of the last search, from the mover's point of view
+    public int getBestScore() {
+        return workers[0].bestScore;
+    }
+
+    // Best square (row * 8 + col) for the player to move, or OthelloBoard.PASS if there is none
+    public int findBestMove(OthelloBoard board) {
+        int player = board.getCurrentPlayer();
+        return findBestMove(board.getDiscs(player), board.getDiscs(3 - player), player, MAX_DEPTH);
+    }
+
+    // Search the position where `player` owns `own` and is to move, stopping at depthLimit plies
+    public int findBestMove(long own, long opp, int player, int depthLimit) {
+        deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        stopped = false;
+        if (table != null) {
+            table.newSearch();
+        }
+        for (Worker worker : workers) {
+            worker.reset();
+        }
+        if (pool == null) {
+            return workers[0].search(own, opp, player, depthLimit);
+        }
+        ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            helpers[i - 1] = pool.submit(() -> helper.search(own, opp, player, depthLimit));
+        }
+        // The calling thread runs the main search; its result is the one played
+        int bestMove = workers[0].search(own, opp, player, depthLimit);
+        stopped = true;
+        for (ForkJoinTask<?> helper : helpers) {
+            helper.join();
+        }
+        return bestMove;
+    }
+
+    // One search thread with its own scratch buffers and counters
+    private class Worker {
+        private final int id;
+        // Per-ply scratch buffers so the search never allocates (passes take a ply too)
+        private final int[][] moveBuffer = new int[2 * MAX_DEPTH + 2][32];
+        private final int[][] orderBuffer = new int[2 * MAX_DEPTH + 2][32];
+        private long nodes;
+        // Transposition table statistics, kept per thread so the threads never share a counter
+        private long tableProbes;
+        private long tableHits;
+        private int completedDepth;
+        private int bestScore;
+        private boolean aborted;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void reset() {
+            nodes = 0;
+            tableProbes = 0;
+            tableHits = 0;
+            completedDepth = 0;
+            bestScore = 0;
+            aborted = false;
+        }
+
+        int search(long own, long opp, int player, int depthLimit) {
+            long hash = player == 1 ? OthelloBoard.hash(own, opp, 1) : OthelloBoard.hash(opp, own, 2);
+            long legal = OthelloBoard.legalMoves(own, opp);
+            if (legal == 0) {
+                return OthelloBoard.PASS;
+            }
+            int[] moves = moveBuffer[0];
+            int count = orderMoves(own, opp, legal, moves, orderBuffer[0], 0, probeMove(hash));
+            int bestMove = moves[0];
+            if (count == 1) {
+                return bestMove;
+            }
+
+            // Odd helpers run one ply ahead of the main thread so the threads spread over depths
+            int maxDepth = Math.min(depthLimit, 64 - Long.bitCount(own | opp));
+            for (int depth = 1 + (id & 1); depth <= maxDepth; depth++) {
+                int alpha = -INFINITY;
+                int iterationBest = -1;
+                for (int i = 0; i < count; i++) {
+                    int square = moves[i];
+                    long flipped = OthelloBoard.flips(own, opp, square);
+                    long childHash = OthelloBoard.hashAfterMove(hash, player, square, flipped);
+                    int score = -negamax(opp & ~flipped, own | flipped | (1L << square), 3 - player, childHash,
+                            depth - 1, -INFINITY, -alpha, 1, false);
+                    if (aborted) {
+                        break;
+                    }
+                    if (score > alpha) {
+                        alpha = score;
+                        iterationBest = square;
+                    }
+                }
+                // A move that finished searching is trustworthy even if the iteration itself did not
+                if (iterationBest != -1) {
+                    bestMove = iterationBest;
+                    promote(moves, count, bestMove);
+                }
+                if (aborted) {
+                    break;
+                }
+                if (table != null) {
+                    table.store(hash, depth, alpha, OthelloTranspositionTable.EXACT, bestMove);
+                }
+                completedDepth = depth;
+                bestScore = alpha;
+                if (Math.abs(alpha) >= WIN_SCORE) {
+                    break; // the game result is already proven
+                }
+            }
+            return bestMove;
+        }
+
+        private int negamax(long own, long opp, int player, long hash, int depth, int alpha, int beta, int ply, boolean passed) {
+            if ((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && (stopped || System.nanoTime() > deadline)) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            long legal = OthelloBoard.legalMoves(own, opp);
+            if (legal == 0) {
+                if (passed) {
+                    return finalScore(own, opp);
+                }
+                return -negamax(opp, own, 3 - player, OthelloBoard.hashAfterPass(hash), depth, -beta, -alpha, ply + 1, true);
+            }
+            if (depth <= 0) {
+                return evaluate(own, opp);
+            }
+
+            int hashMove = OthelloTranspositionTable.NO_MOVE;
+            if (table != null) {
+                long entry = table.probe(hash);
+                tableProbes++;
+                if (entry != 0) {
+                    tableHits++;
+                    hashMove = OthelloTranspositionTable.moveOf(entry);
+                    if (OthelloTranspositionTable.depthOf(entry) >= depth) {
+                        int score = OthelloTranspositionTable.scoreOf(entry);
+                        int bound = OthelloTranspositionTable.boundOf(entry);
+                        if (bound == OthelloTranspositionTable.EXACT
+                                || (bound == OthelloTranspositionTable.LOWER_BOUND && score >= beta)
+                                || (bound == OthelloTranspositionTable.UPPER_BOUND && score <= alpha)) {
+                            return score;
+                        }
+                    }
+                }
+            }
+
+            int originalAlpha = alpha;
+            int[] moves = moveBuffer[ply];
+            int count = orderMoves(own, opp, legal, moves, orderBuffer[ply], depth, hashMove);
+            int best = -INFINITY;
+            int bestMove = OthelloTranspositionTable.NO_MOVE;
+            for (int i = 0; i < count; i++) {
+                int square = moves[i];
+                long flipped = OthelloBoard.flips(own, opp, square);
+                long childHash = OthelloBoard.hashAfterMove(hash, player, square, flipped);
+                int score = -negamax(opp & ~flipped, own | flipped | (1L << square), 3 - player, childHash,
+                        depth - 1, -beta, -alpha, ply + 1, false);
+                if (score > best) {
+                    best = score;
+                    bestMove = square;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (table != null && !aborted) {
+                int bound = best >= beta ? OthelloTranspositionTable.LOWER_BOUND
+                        : best > originalAlpha ? OthelloTranspositionTable.EXACT : OthelloTranspositionTable.UPPER_BOUND;
+                table.store(hash, depth, best, bound, bestMove);
+            }
+            return best;
+        }
+    }
+
+    private int probeMove(long hash) {
+        if (table == null) {
+            return OthelloTranspositionTable.NO_MOVE;
+        }
+        long entry = table.probe(hash);
+        return entry != 0 ? OthelloTranspositionTable.moveOf(entry) : OthelloTranspositionTable.NO_MOVE;
+    }
+
+    // Fill `moves` with the legal squares, best candidates first.
+    // The cached best move goes first, then deep nodes are ordered by how few replies the
+    // opponent gets and shallow ones by square weight.
+    private static int orderMoves(long own, long opp, long legal, int[] moves, int[] keys, int depth, int hashMove) {
+        int count = 0;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            int key;
+            if (square == hashMove) {
+                key = Integer.MAX_VALUE;
+            } else if (depth >= 3) {
+                long flipped = OthelloBoard.flips(own, opp, square);
+                long replies = OthelloBoard.legalMoves(opp & ~flipped, own | flipped | (1L << square));
+                key = SQUARE_WEIGHTS[square] - 16 * Long.bitCount(replies) - ((replies & CORNERS) != 0 ? 200 : 0);
+            } else {
+                key = SQUARE_WEIGHTS[square];
+            }
+            // Insertion sort, the lists are tiny
+            int i = count++;
+            while (i > 0 && keys[i - 1] < key) {
+                moves[i] = moves[i - 1];
+                keys[i] = keys[i - 1];
+                i--;
+            }
+            moves[i] = square;
+            keys[i] = key;
+        }
+        return count;
+    }
+
+    // Move the given square to the front of the list, keeping the rest in order
+    private static void promote(int[] moves, int count, int square) {
+        int i = 0;
+        while (i < count && moves[i] != square) {
+            i++;
+        }
+        for (; i > 0; i--) {
+            moves[i] = moves[i - 1];
+        }
+        moves[0] = square;
+    }
+
+    // Exact result of a finished game from the point of view of `own`
+    static int finalScore(long own, long opp) {
+        int diff = Long.bitCount(own) - Long.bitCount(opp);
+        if (diff > 0) {
+            return WIN_SCORE + diff;
+        } else if (diff < 0) {
+            return -WIN_SCORE + diff;
+        }
+        return 0;
+    }
+
+    // Heuristic value of a position for the player owning `own`, built on mobility, corners and stability
+    public static int evaluate(long own, long opp) {
+        long empty = ~(own | opp);
+        int ownMobility = Long.bitCount(OthelloBoard.legalMoves(own, opp));
+        int oppMobility = Long.bitCount(OthelloBoard.legalMoves(opp, own));
+        int mobility = 100 * (ownMobility - oppMobility) / (ownMobility + oppMobility + 2);
+
+        int corners = Long.bitCount(own & CORNERS) - Long.bitCount(opp & CORNERS);
+
+        // X-squares only hurt while the corner next to them is still open
+        long exposedX = xSquaresNextTo(empty & CORNERS);
+        int xSquares = Long.bitCount(opp & exposedX) - Long.bitCount(own & exposedX);
+
+        int stability = Long.bitCount(stableDiscs(own)) - Long.bitCount(stableDiscs(opp));
+
+        return 10 * mobility + 80 * corners + 30 * xSquares + 20 * stability;
+    }
+
+    private static long xSquaresNextTo(long corners) {
+        long x = 0;
+        if ((corners & 1L) != 0) x |= 1L << 9;
+        if ((corners & (1L << 7)) != 0) x |= 1L << 14;
+        if ((corners & (1L << 56)) != 0) x |= 1L << 49;
+        if ((corners & (1L << 63)) != 0) x |= 1L << 54;
+        return x;
+    }
+
+    // Discs of `own` that can never be flipped: grown from the corners, a disc is stable when on each
+    // of the four lines through it one neighbour is the board edge or an already stable own disc.
+    static long stableDiscs(long own) {
+        long stable = own & CORNERS;
+        while (stable != 0) {
+            long vertical = OthelloBoard.shift(stable, 0) | OthelloBoard.shift(stable, 1) | EDGE_ROWS;
+            long horizontal = OthelloBoard.shift(stable, 2) | OthelloBoard.shift(stable, 3) | EDGE_COLS;
+            long diagonal = OthelloBoard.shift(stable, 4) | OthelloBoard.shift(stable, 7) | EDGES;
+            long antiDiagonal = OthelloBoard.shift(stable, 5) | OthelloBoard.shift(stable, 6) | EDGES;
+            long next = stable | (own & vertical & horizontal & diagonal & antiDiagonal);
+            if (next == stable) {
+                break;
+            }
+            stable = next;
+        }
+        return stable;
+    }
+
+    // Report time-to-depth, speedup and transposition table hit rate of the parallel search for 1..N threads.
+    // Usage: java OthelloAI [maxThreads] [depth] [positions]
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int positions = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        // Midgame positions reached by random play from a fixed seed
+        Random random = new Random(42);
+        OthelloBoard[] boards = new OthelloBoard[positions];
+        for (int i = 0; i < positions; i++) {
+            OthelloBoard board = new OthelloBoard();
+            for (int ply = 0; ply < 16 + 2 * i && !board.isGameOver(); ply++) {
+                long moves = board.legalMoves();
+                if (moves == 0) {
+                    board.pass();
+                    continue;
+                }
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                int square = Long.numberOfTrailingZeros(moves);
+                board.play(square / 8, square % 8);
+            }
+            boards[i] = board;
+        }
+
+        double baseline = 0;
+        System.out.println("threads  seconds     nodes  nodes/s  speedup  TT hits");
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            long nodes = 0;
+            long probes = 0;
+            long hits = 0;
+            long start = System.nanoTime();
+            for (OthelloBoard board : boards) {
+                OthelloAI ai = new OthelloAI(86_400_000L, 64, threads);
+                int player = board.getCurrentPlayer();
+                ai.findBestMove(board.getDiscs(player), board.getDiscs(3 - player), player, depth);
+                nodes += ai.getNodes();
+                probes += ai.getTableProbes();
+                hits += ai.getTableHits();
+                ai.shutdown();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (threads == 1) {
+                baseline = seconds;
+            }
+            System.out.printf("%7d  %7.2f  %9d  %7.0f  %7.2f  %6.1f%%%n", threads, seconds, nodes, nodes / seconds,
+                    baseline / seconds, probes == 0 ? 0 : 100.0 * hits / probes);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.util.Random;
+
+// Micro-benchmark for Othello move generation and flip application.
+// Compares the original String[][] board code (kept here as LegacyBoard) with the OthelloBoard bitboards
+// on the same corpus of positions, reporting the best nanoseconds per operation over several rounds
+// after a warm-up phase.
+public class OthelloBenchmark {
+    private static final int CORPUS_SIZE = 4096;
+    private static final int WARMUP_PASSES = 100;
+    private static final int MEASURE_ROUNDS = 10;
+    private static final int PASSES_PER_ROUND = 20;
+
+    // Results are folded into this field so the JIT cannot drop the measured work
+    private static long sink;
+
+    // The pre-bitboard board representation and its move rules, unchanged apart from dropping the UI
+    static class LegacyBoard {
+        private static final int GRID_SIZE = 8;
+        private final String[][] board = new String[GRID_SIZE][GRID_SIZE];
+        private int currentPlayer;
+
+        LegacyBoard(OthelloBoard source) {
+            for (int row = 0; row < GRID_SIZE; row++) {
+                for (int col = 0; col < GRID_SIZE; col++) {
+                    int owner = source.getOwner(row, col);
+                    board[row][col] = owner == 0 ? null : String.valueOf(owner);
+                }
+            }
+            currentPlayer = source.getCurrentPlayer();
+        }
+
+        LegacyBoard(LegacyBoard source) {
+            for (int row = 0; row < GRID_SIZE; row++) {
+                System.arraycopy(source.board[row], 0, board[row], 0, GRID_SIZE);
+            }
+            currentPlayer = source.currentPlayer;
+        }
+
+        boolean isValidMove(int row, int col) {
+            if (board[row][col] != null) {
+                return false;
+            }
+            int[][] directions = {
+                {-1, 0}, {1, 0}, {0, -1}, {0, 1},
+                {-1, -1}, {-1, 1}, {1, -1}, {1, 1}
+            };
+            for (int[] dir : directions) {
+                int dRow = dir[0];
+                int dCol = dir[1];
+                int r = row + dRow;
+                int c = col + dCol;
+                boolean hasOpponentPiece = false;
+                while (r >= 0 && r < GRID_SIZE && c >= 0 && c < GRID_SIZE) {
+                    if (board[r][c] == null) {
+                        break;
+                    } else if (board[r][c].equals(String.valueOf(currentPlayer))) {
+                        if (hasOpponentPiece) {
+                            return true;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        hasOpponentPiece = true;
+                    }
+                    r += dRow;
+                    c += dCol;
+                }
+            }
+            return false;
+        }
+
+        void placePiece(int row, int col) {
+            board[row][col] = String.valueOf(currentPlayer);
+            int[][] directions = {
+                {-1, 0}, {1, 0}, {0, -1}, {0, 1},
+                {-1, -1}, {-1, 1}, {1, -1}, {1, 1}
+            };
+            for (int[] dir : directions) {
+                int dRow = dir[0];
+                int dCol = dir[1];
+                int r = row + dRow;
+                int c = col + dCol;
+                boolean hasOpponentPiece = false;
+                while (r >= 0 && r < GRID_SIZE && c >= 0 && c < GRID_SIZE) {
+                    if (board[r][c] == null) {
+                        break;
+                    } else if (board[r][c].equals(String.valueOf(currentPlayer))) {
+                        if (hasOpponentPiece) {
+                            while (r != row || c != col) {
+                                board[r][c] = String.valueOf(currentPlayer);
+                                r -= dRow;
+                                c -= dCol;
+                            }
+                        }
+                        break;
+                    } else {
+                        hasOpponentPiece = true;
+                    }
+                    r += dRow;
+                    c += dCol;
+                }
+            }
+        }
+
+        // Legal moves as a bitmask so both implementations produce comparable results
+        long legalMoves() {
+            long moves = 0;
+            for (int row = 0; row < GRID_SIZE; row++) {
+                for (int col = 0; col < GRID_SIZE; col++) {
+                    if (isValidMove(row, col)) {
+                        moves |= OthelloBoard.bit(row, col);
+                    }
+                }
+            }
+            return moves;
+        }
+    }
+
+    // Usage: java OthelloBenchmark [seed]
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 7);
+        OthelloBoard[] boards = new OthelloBoard[CORPUS_SIZE];
+        LegacyBoard[] legacyBoards = new LegacyBoard[CORPUS_SIZE];
+        int[] moves = new int[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            boards[i] = randomPosition(random);
+            legacyBoards[i] = new LegacyBoard(boards[i]);
+            long legal = boards[i].legalMoves();
+            if (legal != legacyBoards[i].legalMoves()) {
+                throw new IllegalStateException("Legacy and bitboard move generation disagree on position " + i);
+            }
+            for (int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            moves[i] = Long.numberOfTrailingZeros(legal);
+        }
+
+        report("legacy move generation", () -> {
+            for (LegacyBoard board : legacyBoards) {
+                sink += board.legalMoves();
+            }
+        });
+        report("bitboard move generation", () -> {
+            for (OthelloBoard board : boards) {
+                int player = board.getCurrentPlayer();
+                sink += OthelloBoard.legalMoves(board.getDiscs(player), board.getDiscs(3 - player));
+            }
+        });
+        // Both flip benchmarks apply the move to a scratch copy so the corpus stays unchanged
+        report("legacy flip application", () -> {
+            for (int i = 0; i < CORPUS_SIZE; i++) {
+                LegacyBoard scratch = new LegacyBoard(legacyBoards[i]);
+                scratch.placePiece(moves[i] / 8, moves[i] % 8);
+                sink += scratch.board[moves[i] / 8][moves[i] % 8].length();
+            }
+        });
+        report("bitboard flip application", () -> {
+            for (int i = 0; i < CORPUS_SIZE; i++) {
+                OthelloBoard board = boards[i];
+                int player = board.getCurrentPlayer();
+                long own = board.getDiscs(player);
+                long opp = board.getDiscs(3 - player);
+                long flipped = OthelloBoard.flips(own, opp, moves[i]);
+                own |= flipped | (1L << moves[i]);
+                opp &= ~flipped;
+                sink += own ^ opp;
+            }
+        });
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void report(String name, Runnable pass) {
+        for (int warmup = 0; warmup < WARMUP_PASSES; warmup++) {
+            pass.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int repeat = 0; repeat < PASSES_PER_ROUND; repeat++) {
+                pass.run();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %10.1f ns/op%n", name, best / ((double) PASSES_PER_ROUND * CORPUS_SIZE));
+    }
+
+    // A position with at least one legal move for the side to move, reached by random play
+    private static OthelloBoard randomPosition(Random random) {
+        while (true) {
+            OthelloBoard board = new OthelloBoard();
+            int plies = 4 + random.nextInt(50);
+            for (int ply = 0; ply < plies && !board.isGameOver(); ply++) {
+                long legal = board.legalMoves();
+                if (legal == 0) {
+                    board.pass();
+                    continue;
+                }
+                for (int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) {
+                    legal &= legal - 1;
+                }
+                int square = Long.numberOfTrailingZeros(legal);
+                board.play(square / 8, square % 8);
+            }
+            if (board.legalMoves() != 0) {
+                return board;
+            }
+        }
+    }
+}
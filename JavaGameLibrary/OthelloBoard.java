@@ -0,0 +1,376 @@
+import java.util.Random;
+
+// Headless Othello position backed by two 64-bit bitboards, one per player.
+// Square index is row * 8 + col, so bit 0 is the top-left corner and bit 63 the bottom-right.
+// Move generation and flips are computed with shift-and-mask operations and never allocate.
+// Disc counts, the empty count and the frontier (empty squares next to a disc) are kept up to date
+// on every move, so game-state queries never sweep the whole board.
+public class OthelloBoard {
+    public static final int GRID_SIZE = 8;
+    public static final int PASS = -1;
+
+    // Masks that clear the column a piece would wrap into when shifted east or west
+    private static final long NOT_COL_0 = 0xfefefefefefefefeL;
+    private static final long NOT_COL_7 = 0x7f7f7f7f7f7f7f7fL;
+
+    // Zobrist keys per player and square, plus one for player 2 to move.
+    // The seed is fixed so hashes stay stable between runs.
+    private static final long[][] ZOBRIST = new long[3][64];
+    private static final long[] ZOBRIST_FLIP = new long[64];
+    private static final long ZOBRIST_SIDE;
+
+    static {
+        Random random = new Random(0x07e1105eedL);
+        for (int square = 0; square < 64; square++) {
+            ZOBRIST[1][square] = random.nextLong();
+            ZOBRIST[2][square] = random.nextLong();
+            ZOBRIST_FLIP[square] = ZOBRIST[1][square] ^ ZOBRIST[2][square];
+        }
+        ZOBRIST_SIDE = random.nextLong();
+    }
+
+    // Squares touching each square, used to grow the frontier one disc at a time
+    private static final long[] NEIGHBOURS = new long[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            for (int dir = 0; dir < 8; dir++) {
+                NEIGHBOURS[square] |= shift(1L << square, dir);
+            }
+        }
+    }
+
+    private long player1; // discs of player 1 (black)
+    private long player2; // discs of player 2 (white)
+    private int currentPlayer = 1;
+    private int player1Count;
+    private int player2Count;
+    private int emptyCount;
+    private long frontier;
+
+    public OthelloBoard() {
+        reset();
+    }
+
+    public OthelloBoard(long player1, long player2, int currentPlayer) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.currentPlayer = currentPlayer;
+        recount();
+    }
+
+    // Put the four starting discs in the center and give player 1 the first move
+    public void reset() {
+        player1 = bit(3, 3) | bit(4, 4);
+        player2 = bit(3, 4) | bit(4, 3);
+        currentPlayer = 1;
+        recount();
+    }
+
+    // Rebuild the incremental counters from the bitboards
+    private void recount() {
+        long occupied = player1 | player2;
+        player1Count = Long.bitCount(player1);
+        player2Count = Long.bitCount(player2);
+        emptyCount = 64 - Long.bitCount(occupied);
+        frontier = 0;
+        for (long rest = occupied; rest != 0; rest &= rest - 1) {
+            frontier |= NEIGHBOURS[Long.numberOfTrailingZeros(rest)];
+        }
+        frontier &= ~occupied;
+    }
+
+    public OthelloBoard copy() {
+        return new OthelloBoard(player1, player2, currentPlayer);
+    }
+
+    public static long bit(int row, int col) {
+        return 1L << (row * GRID_SIZE + col);
+    }
+
+    public long getDiscs(int player) {
+        return player == 1 ? player1 : player2;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    // Returns 1 or 2 for an occupied square, 0 when it is empty
+    public int getOwner(int row, int col) {
+        long b = bit(row, col);
+        if ((player1 & b) != 0) {
+            return 1;
+        }
+        return (player2 & b) != 0 ? 2 : 0;
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return ((player1 | player2) & bit(row, col)) == 0;
+    }
+
+    public int countPieces(int player) {
+        return player == 1 ? player1Count : player2Count;
+    }
+
+    public int countEmpty() {
+        return emptyCount;
+    }
+
+    // Empty squares next to at least one disc; every legal move is one of them
+    public long getFrontier() {
+        return frontier;
+    }
+
+    // Legal moves for the player to move as a bitmask of target squares
+    public long legalMoves() {
+        return currentPlayer == 1 ? legalMoves(player1, player2) : legalMoves(player2, player1);
+    }
+
+    // Whether `player` can place a disc, trying only frontier squares and stopping at the first hit
+    public boolean hasLegalMove(int player) {
+        long own = getDiscs(player);
+        long opp = getDiscs(3 - player);
+        for (long rest = frontier; rest != 0; rest &= rest - 1) {
+            if (flips(own, opp, Long.numberOfTrailingZeros(rest)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isValidMove(int row, int col) {
+        return (legalMoves() & bit(row, col)) != 0;
+    }
+
+    // Discs that would be flipped if the player to move played on (row, col)
+    public long flipsFor(int row, int col) {
+        int square = row * GRID_SIZE + col;
+        return currentPlayer == 1 ? flips(player1, player2, square) : flips(player2, player1, square);
+    }
+
+    // Place a disc for the player to move, flip captured discs and hand the turn over.
+    // Returns the mask of flipped discs; the caller is expected to have checked legality.
+    public long play(int row, int col) {
+        int square = row * GRID_SIZE + col;
+        long move = 1L << square;
+        long flipped;
+        if (currentPlayer == 1) {
+            flipped = flips(player1, player2, square);
+            player1 |= move | flipped;
+            player2 &= ~flipped;
+        } else {
+            flipped = flips(player2, player1, square);
+            player2 |= move | flipped;
+            player1 &= ~flipped;
+        }
+        int flipCount = Long.bitCount(flipped);
+        if (currentPlayer == 1) {
+            player1Count += flipCount + 1;
+            player2Count -= flipCount;
+        } else {
+            player2Count += flipCount + 1;
+            player1Count -= flipCount;
+        }
+        emptyCount--;
+        frontier = (frontier | NEIGHBOURS[square]) & ~(player1 | player2);
+        currentPlayer = 3 - currentPlayer;
+        return flipped;
+    }
+
+    // Hand the turn to the other player without placing a disc
+    public void pass() {
+        currentPlayer = 3 - currentPlayer;
+    }
+
+    // True when the board is full or neither side has a legal move
+    public boolean isGameOver() {
+        return emptyCount == 0 || (!hasLegalMove(1) && !hasLegalMove(2));
+    }
+
+    public long hash() {
+        return hash(player1, player2, currentPlayer);
+    }
+
+    // Full Zobrist hash of a position, used to seed the incremental updates below
+    public static long hash(long player1, long player2, int toMove) {
+        long h = toMove == 2 ? ZOBRIST_SIDE : 0;
+        for (long rest = player1; rest != 0; rest &= rest - 1) {
+            h ^= ZOBRIST[1][Long.numberOfTrailingZeros(rest)];
+        }
+        for (long rest = player2; rest != 0; rest &= rest - 1) {
+            h ^= ZOBRIST[2][Long.numberOfTrailingZeros(rest)];
+        }
+        return h;
+    }
+
+    // Hash after `player` places a disc on `square` and flips `flipped`, with the turn handed over
+    public static long hashAfterMove(long hash, int player, int square, long flipped) {
+        hash ^= ZOBRIST[player][square] ^ ZOBRIST_SIDE;
+        for (long rest = flipped; rest != 0; rest &= rest - 1) {
+            hash ^= ZOBRIST_FLIP[Long.numberOfTrailingZeros(rest)];
+        }
+        return hash;
+    }
+
+    public static long hashAfterPass(long hash) {
+        return hash ^ ZOBRIST_SIDE;
+    }
+
+    // Shift every disc one step in the given direction, dropping discs that would wrap around an edge
+    static long shift(long b, int dir) {
+        return switch (dir) {
+            case 0 -> b >>> 8;                  // north
+            case 1 -> b << 8;                   // south
+            case 2 -> (b << 1) & NOT_COL_0;     // east
+            case 3 -> (b >>> 1) & NOT_COL_7;    // west
+            case 4 -> (b >>> 7) & NOT_COL_0;    // north-east
+            case 5 -> (b >>> 9) & NOT_COL_7;    // north-west
+            case 6 -> (b << 9) & NOT_COL_0;     // south-east
+            default -> (b << 7) & NOT_COL_7;    // south-west
+        };
+    }
+
+    // All squares where `own` can play against `opp`, found by flooding runs of opponent discs in each direction.
+    // Opponent discs on the outer columns are masked out for sideways directions so runs cannot wrap a row.
+    public static long legalMoves(long own, long opp) {
+        long empty = ~(own | opp);
+        long inner = opp & 0x7e7e7e7e7e7e7e7eL;
+        long moves;
+        long run;
+
+        run = (own >>> 8) & opp;            // north
+        run |= (run >>> 8) & opp;
+        run |= (run >>> 8) & opp;
+        run |= (run >>> 8) & opp;
+        run |= (run >>> 8) & opp;
+        run |= (run >>> 8) & opp;
+        moves = run >>> 8;
+
+        run = (own << 8) & opp;             // south
+        run |= (run << 8) & opp;
+        run |= (run << 8) & opp;
+        run |= (run << 8) & opp;
+        run |= (run << 8) & opp;
+        run |= (run << 8) & opp;
+        moves |= run << 8;
+
+        run = (own << 1) & inner;           // east
+        run |= (run << 1) & inner;
+        run |= (run << 1) & inner;
+        run |= (run << 1) & inner;
+        run |= (run << 1) & inner;
+        run |= (run << 1) & inner;
+        moves |= run << 1;
+
+        run = (own >>> 1) & inner;          // west
+        run |= (run >>> 1) & inner;
+        run |= (run >>> 1) & inner;
+        run |= (run >>> 1) & inner;
+        run |= (run >>> 1) & inner;
+        run |= (run >>> 1) & inner;
+        moves |= run >>> 1;
+
+        run = (own >>> 7) & inner;          // north-east
+        run |= (run >>> 7) & inner;
+        run |= (run >>> 7) & inner;
+        run |= (run >>> 7) & inner;
+        run |= (run >>> 7) & inner;
+        run |= (run >>> 7) & inner;
+        moves |= run >>> 7;
+
+        run = (own >>> 9) & inner;          // north-west
+        run |= (run >>> 9) & inner;
+        run |= (run >>> 9) & inner;
+        run |= (run >>> 9) & inner;
+        run |= (run >>> 9) & inner;
+        run |= (run >>> 9) & inner;
+        moves |= run >>> 9;
+
+        run = (own << 9) & inner;           // south-east
+        run |= (run << 9) & inner;
+        run |= (run << 9) & inner;
+        run |= (run << 9) & inner;
+        run |= (run << 9) & inner;
+        run |= (run << 9) & inner;
+        moves |= run << 9;
+
+        run = (own << 7) & inner;           // south-west
+        run |= (run << 7) & inner;
+        run |= (run << 7) & inner;
+        run |= (run << 7) & inner;
+        run |= (run << 7) & inner;
+        run |= (run << 7) & inner;
+        moves |= run << 7;
+
+        return moves & empty;
+    }
+
+    // Opponent discs flipped when `own` plays on `square`: walk each direction over opponent
+    // discs and keep the run only if it ends on one of our own discs
+    public static long flips(long own, long opp, int square) {
+        long move = 1L << square;
+        long inner = opp & 0x7e7e7e7e7e7e7e7eL;
+        long flipped = 0;
+        long run;
+        long cursor;
+
+        run = 0;                            // north
+        for (cursor = move >>> 8; (cursor & opp) != 0; cursor >>>= 8) {
+            run |= cursor;
+        }
+        if ((cursor & own) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // south
+        for (cursor = move << 8; (cursor & opp) != 0; cursor <<= 8) {
+            run |= cursor;
+        }
+        if ((cursor & own) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // east
+        for (cursor = move << 1; (cursor & inner) != 0; cursor <<= 1) {
+            run |= cursor;
+        }
+        if ((cursor & own & NOT_COL_0) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // west
+        for (cursor = move >>> 1; (cursor & inner) != 0; cursor >>>= 1) {
+            run |= cursor;
+        }
+        if ((cursor & own & NOT_COL_7) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // north-east
+        for (cursor = move >>> 7; (cursor & inner) != 0; cursor >>>= 7) {
+            run |= cursor;
+        }
+        if ((cursor & own & NOT_COL_0) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // north-west
+        for (cursor = move >>> 9; (cursor & inner) != 0; cursor >>>= 9) {
+            run |= cursor;
+        }
+        if ((cursor & own & NOT_COL_7) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // south-east
+        for (cursor = move << 9; (cursor & inner) != 0; cursor <<= 9) {
+            run |= cursor;
+        }
+        if ((cursor & own & NOT_COL_0) != 0) {
+            flipped |= run;
+        }
+        run = 0;                            // south-west
+        for (cursor = move << 7; (cursor & inner) != 0; cursor <<= 7) {
+            run |= cursor;
+        }
+        if ((cursor & own & NOT_COL_7) != 0) {
+            flipped |= run;
+        }
+        return flipped;
+    }
+}
@@ -0,0 +1,336 @@
+import java.util.Random;
+
+// Perfect-play Othello solver for the last empties of a game.
+// Scores are exact final disc differentials from the point of view of the player to move.
+// Moves are searched fastest-first (fewest opponent replies) with a bonus for squares in
+// quadrants holding an odd number of empties, using null windows after the first move and a
+// transposition table while enough empties remain; the last few empties are walked directly.
+public class OthelloEndgameSolver {
+    private static final int SHALLOW_EMPTIES = 6;
+    private static final int HASH_EMPTIES = 8;
+    private static final int STABILITY_THRESHOLD = 16;
+    private static final int STOP_CHECK_INTERVAL = 1024;
+    private static final long CORNERS = 0x8100000000000081L;
+    // Bit i set in QUADRANT_MASKS[q] when square i lies in quadrant q
+    private static final long[] QUADRANT_MASKS = {
+        0x000000000f0f0f0fL, 0x00000000f0f0f0f0L, 0x0f0f0f0f00000000L, 0xf0f0f0f000000000L
+    };
+
+    private final OthelloTranspositionTable table;
+    private final int[][] moveBuffer = new int[65][32];
+    private final int[][] orderBuffer = new int[65][32];
+    private long nodes;
+    private long elapsedNanos;
+    private volatile boolean stopped;
+    private boolean aborted;
+
+    public OthelloEndgameSolver() {
+        this(16);
+    }
+
+    public OthelloEndgameSolver(int hashMegabytes) {
+        table = new OthelloTranspositionTable(hashMegabytes);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Ask a running findBestMove to return early with the best move proven so far; safe to call from any thread.
+    // The answer is then no longer guaranteed to be perfect.
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    // Exact final disc differential for the side owning `own`, which is to move
+    public int solve(long own, long opp) {
+        long start = System.nanoTime();
+        nodes = 0;
+        stopped = false;
+        aborted = false;
+        table.newSearch();
+        int score = search(own, opp, 1, OthelloBoard.hash(own, opp, 1), -64, 64, 0, false);
+        elapsedNanos = System.nanoTime() - start;
+        return score;
+    }
+
+    // Best square for the player to move with perfect play, or OthelloBoard.PASS
+    public int findBestMove(OthelloBoard board) {
+        int player = board.getCurrentPlayer();
+        return findBestMove(board.getDiscs(player), board.getDiscs(3 - player));
+    }
+
+    public int findBestMove(long own, long opp) {
+        long start = System.nanoTime();
+        nodes = 0;
+        stopped = false;
+        aborted = false;
+        table.newSearch();
+        long hash = OthelloBoard.hash(own, opp, 1);
+        long legal = OthelloBoard.legalMoves(own, opp);
+        int bestMove = OthelloBoard.PASS;
+        if (legal != 0) {
+            int[] moves = moveBuffer[0];
+            int count = orderMoves(own, opp, legal, moves, orderBuffer[0], OthelloTranspositionTable.NO_MOVE);
+            bestMove = moves[0];
+            int alpha = -65;
+            for (int i = 0; i < count; i++) {
+                int square = moves[i];
+                long flipped = OthelloBoard.flips(own, opp, square);
+                long childOwn = opp & ~flipped;
+                long childOpp = own | flipped | (1L << square);
+                long childHash = OthelloBoard.hashAfterMove(hash, 1, square, flipped);
+                int score;
+                if (i == 0) {
+                    score = -search(childOwn, childOpp, 2, childHash, -64, 64, 1, false);
+                } else {
+                    score = -search(childOwn, childOpp, 2, childHash, -alpha - 1, -alpha, 1, false);
+                    if (score > alpha) {
+                        score = -search(childOwn, childOpp, 2, childHash, -64, -score, 1, false);
+                    }
+                }
+                // The score of an interrupted search is meaningless, keep the last proven move
+                if (aborted) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = square;
+                }
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    // The root side to move is hashed as player 1; the table only needs the labelling to be consistent
+    private int search(long own, long opp, int player, long hash, int alpha, int beta, int ply, boolean passed) {
+        if ((++nodes & (STOP_CHECK_INTERVAL - 1)) == 0 && stopped) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        long empty = ~(own | opp);
+        int empties = Long.bitCount(empty);
+        if (empties == 0) {
+            return 2 * Long.bitCount(own) - 64;
+        }
+        if (empties <= SHALLOW_EMPTIES) {
+            return searchShallow(own, opp, empty, alpha, beta, passed);
+        }
+        long legal = OthelloBoard.legalMoves(own, opp);
+        if (legal == 0) {
+            if (passed) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            return -search(opp, own, 3 - player, OthelloBoard.hashAfterPass(hash), -beta, -alpha, ply + 1, true);
+        }
+
+        int hashMove = OthelloTranspositionTable.NO_MOVE;
+        boolean useTable = empties >= HASH_EMPTIES;
+        if (useTable) {
+            long entry = table.probe(hash);
+            if (entry != 0) {
+                hashMove = OthelloTranspositionTable.moveOf(entry);
+                int score = OthelloTranspositionTable.scoreOf(entry);
+                int bound = OthelloTranspositionTable.boundOf(entry);
+                if (bound == OthelloTranspositionTable.EXACT
+                        || (bound == OthelloTranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == OthelloTranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        // Discs the opponent can never lose cap how well this position can turn out
+        if (alpha >= STABILITY_THRESHOLD) {
+            int maxScore = 64 - 2 * Long.bitCount(OthelloAI.stableDiscs(opp));
+            if (maxScore <= alpha) {
+                return maxScore;
+            }
+            if (maxScore < beta) {
+                beta = maxScore;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int[] moves = moveBuffer[ply];
+        int count = orderMoves(own, opp, legal, moves, orderBuffer[ply], hashMove);
+        int best = -65;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            int square = moves[i];
+            long flipped = OthelloBoard.flips(own, opp, square);
+            long childOwn = opp & ~flipped;
+            long childOpp = own | flipped | (1L << square);
+            long childHash = OthelloBoard.hashAfterMove(hash, player, square, flipped);
+            int score;
+            if (i == 0) {
+                score = -search(childOwn, childOpp, 3 - player, childHash, -beta, -alpha, ply + 1, false);
+            } else {
+                // Prove the move is no better than the first one with a null window, re-search if it is
+                score = -search(childOwn, childOpp, 3 - player, childHash, -alpha - 1, -alpha, ply + 1, false);
+                if (score > alpha && score < beta) {
+                    score = -search(childOwn, childOpp, 3 - player, childHash, -beta, -score, ply + 1, false);
+                }
+            }
+            if (score > best) {
+                best = score;
+                bestMove = square;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (aborted) {
+            return 0; // never cache the result of an interrupted search
+        }
+        if (useTable) {
+            int bound = best >= beta ? OthelloTranspositionTable.LOWER_BOUND
+                    : best > originalAlpha ? OthelloTranspositionTable.EXACT : OthelloTranspositionTable.UPPER_BOUND;
+            table.store(hash, empties, best, bound, bestMove);
+        }
+        return best;
+    }
+
+    // Near the end there is no point generating move lists: try each empty square,
+    // odd-parity quadrants first, and treat a square with no flips as illegal
+    private int searchShallow(long own, long opp, long empty, int alpha, int beta, boolean passed) {
+        if (Long.bitCount(empty) == 1) {
+            return lastEmpty(own, opp, Long.numberOfTrailingZeros(empty));
+        }
+        long odd = 0;
+        for (long quadrant : QUADRANT_MASKS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                odd |= quadrant;
+            }
+        }
+        int best = -65;
+        for (int pass = 0; pass < 2; pass++) {
+            long candidates = empty & (pass == 0 ? odd : ~odd);
+            for (; candidates != 0; candidates &= candidates - 1) {
+                int square = Long.numberOfTrailingZeros(candidates);
+                long flipped = OthelloBoard.flips(own, opp, square);
+                if (flipped == 0) {
+                    continue;
+                }
+                nodes++;
+                long move = 1L << square;
+                int score = -searchShallow(opp & ~flipped, own | flipped | move, empty & ~move, -beta, -alpha, false);
+                if (score > best) {
+                    best = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            return best;
+                        }
+                    }
+                }
+            }
+        }
+        if (best == -65) {
+            if (passed) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            nodes++;
+            return -searchShallow(opp, own, empty, -beta, -alpha, true);
+        }
+        return best;
+    }
+
+    // Score when a single empty square is left: the side to move plays it if it can, else the opponent tries
+    private int lastEmpty(long own, long opp, int square) {
+        nodes++;
+        long flipped = OthelloBoard.flips(own, opp, square);
+        if (flipped != 0) {
+            return 2 * (Long.bitCount(own | flipped) + 1) - 64;
+        }
+        flipped = OthelloBoard.flips(opp, own, square);
+        if (flipped != 0) {
+            return 64 - 2 * (Long.bitCount(opp | flipped) + 1);
+        }
+        return Long.bitCount(own) - Long.bitCount(opp);
+    }
+
+    // The cached best move goes first, then fastest-first: moves leaving the opponent the
+    // fewest replies, with corners and odd-parity quadrants as tie breakers
+    private int orderMoves(long own, long opp, long legal, int[] moves, int[] keys, int hashMove) {
+        long empty = ~(own | opp);
+        int count = 0;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            long move = 1L << square;
+            long flipped = OthelloBoard.flips(own, opp, square);
+            long replies = OthelloBoard.legalMoves(opp & ~flipped, own | flipped | move);
+            int key = square == hashMove ? Integer.MAX_VALUE : -16 * Long.bitCount(replies) - 24 * Long.bitCount(replies & CORNERS)
+                    + 2 * Long.bitCount(OthelloAI.stableDiscs(own | flipped | move) & ~own);
+            if ((move & CORNERS) != 0) {
+                key += 8;
+            }
+            if ((Long.bitCount(empty & QUADRANT_MASKS[quadrantOf(square)]) & 1) != 0) {
+                key += 4;
+            }
+            int i = count++;
+            while (i > 0 && keys[i - 1] < key) {
+                moves[i] = moves[i - 1];
+                keys[i] = keys[i - 1];
+                i--;
+            }
+            moves[i] = square;
+            keys[i] = key;
+        }
+        return count;
+    }
+
+    private static int quadrantOf(int square) {
+        return ((square >> 5) & 1) * 2 + ((square >> 2) & 1);
+    }
+
+    // Solve a handful of random positions with the given number of empties and report speed.
+    // Usage: java OthelloEndgameSolver [empties] [positions] [seed]
+    public static void main(String[] args) {
+        int empties = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int positions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 1);
+        OthelloEndgameSolver solver = new OthelloEndgameSolver();
+        for (int i = 0; i < positions; i++) {
+            OthelloBoard board = randomPosition(random, empties);
+            int player = board.getCurrentPlayer();
+            long start = System.nanoTime();
+            int score = solver.solve(board.getDiscs(player), board.getDiscs(3 - player));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("position %d: %d empties, score %+d, %d nodes, %.2f s, %d nodes/s%n",
+                    i + 1, board.countEmpty(), score, solver.getNodes(), seconds, solver.getNodesPerSecond());
+        }
+    }
+
+    // Play random moves from the start until `empties` squares are left (restarting on early game over)
+    private static OthelloBoard randomPosition(Random random, int empties) {
+        while (true) {
+            OthelloBoard board = new OthelloBoard();
+            while (board.countEmpty() > empties && !board.isGameOver()) {
+                long moves = board.legalMoves();
+                if (moves == 0) {
+                    board.pass();
+                    continue;
+                }
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                int square = Long.numberOfTrailingZeros(moves);
+                board.play(square / 8, square % 8);
+            }
+            if (!board.isGameOver()) {
+                return board;
+            }
+        }
+    }
+}
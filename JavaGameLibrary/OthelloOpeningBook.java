@@ -0,0 +1,262 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Othello opening book stored as a sorted binary file and read through a memory map.
+// Positions are keyed by the smallest Zobrist hash over the 8 board symmetries, with the side to move
+// always hashed as player 1, so mirrored and rotated openings share one entry.
+// File layout (big-endian): int magic, int version, long entry count, then fixed-size entries
+// sorted by unsigned key: long key, byte move in the normalized frame, byte unused, short score.
+public class OthelloOpeningBook {
+    public static final int NO_MOVE = -2;
+    // The book only covers the first 20 moves of a game
+    public static final int MAX_BOOK_DISCS = 4 + 20;
+
+    private static final int MAGIC = 0x4f424b31; // "OBK1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 12;
+
+    // SYMMETRY_SQUARES[s][square] is where `square` lands under symmetry s; INVERSE_SQUARES undoes it
+    private static final int[][] SYMMETRY_SQUARES = new int[8][64];
+    private static final int[][] INVERSE_SQUARES = new int[8][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int r = square / 8;
+            int c = square % 8;
+            int[] targets = {
+                r * 8 + c,              // identity
+                r * 8 + (7 - c),        // mirror left-right
+                (7 - r) * 8 + c,        // flip top-bottom
+                (7 - r) * 8 + (7 - c),  // rotate 180
+                c * 8 + r,              // transpose
+                (7 - c) * 8 + (7 - r),  // anti-transpose
+                c * 8 + (7 - r),        // rotate 90
+                (7 - c) * 8 + r         // rotate 270
+            };
+            for (int s = 0; s < 8; s++) {
+                SYMMETRY_SQUARES[s][square] = targets[s];
+                INVERSE_SQUARES[s][targets[s]] = square;
+            }
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final long entryCount;
+
+    private OthelloOpeningBook(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not an Othello opening book");
+        }
+        this.entryCount = buffer.getLong(8);
+    }
+
+    // Map a book file into memory; the entries stay off the heap
+    public static OthelloOpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new OthelloOpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public long size() {
+        return entryCount;
+    }
+
+    public int lookup(OthelloBoard board) {
+        int player = board.getCurrentPlayer();
+        return lookup(board.getDiscs(player), board.getDiscs(3 - player));
+    }
+
+    // Best-scored book move for the side owning `own`, or NO_MOVE when the position is not in the book
+    public int lookup(long own, long opp) {
+        if (Long.bitCount(own | opp) > MAX_BOOK_DISCS) {
+            return NO_MOVE;
+        }
+        int symmetry = normalizingSymmetry(own, opp);
+        long key = OthelloBoard.hash(transform(own, symmetry), transform(opp, symmetry), 1);
+
+        // Binary search for the first entry with this key
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int bestMove = NO_MOVE;
+        int bestScore = Integer.MIN_VALUE;
+        long legal = OthelloBoard.legalMoves(own, opp);
+        for (long i = low; i < entryCount && keyAt(i) == key; i++) {
+            int position = offset(i);
+            int square = INVERSE_SQUARES[symmetry][buffer.get(position + 8) & 0x3f];
+            int score = buffer.getShort(position + 10);
+            // A hash collision could point at an illegal square; never play one
+            if ((legal & (1L << square)) != 0 && score > bestScore) {
+                bestScore = score;
+                bestMove = square;
+            }
+        }
+        return bestMove;
+    }
+
+    private long keyAt(long index) {
+        return buffer.getLong(offset(index));
+    }
+
+    private static int offset(long index) {
+        return (int) (HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    // Discs moved to where symmetry s puts them
+    static long transform(long discs, int symmetry) {
+        long result = 0;
+        for (long rest = discs; rest != 0; rest &= rest - 1) {
+            result |= 1L << SYMMETRY_SQUARES[symmetry][Long.numberOfTrailingZeros(rest)];
+        }
+        return result;
+    }
+
+    // The symmetry whose image of the position has the smallest hash; ties keep the first
+    static int normalizingSymmetry(long own, long opp) {
+        int best = 0;
+        long bestKey = 0;
+        for (int s = 0; s < 8; s++) {
+            long key = OthelloBoard.hash(transform(own, s), transform(opp, s), 1);
+            if (s == 0 || Long.compareUnsigned(key, bestKey) < 0) {
+                best = s;
+                bestKey = key;
+            }
+        }
+        return best;
+    }
+
+    // Build a book from AI self-play. Every position reached in the first `plies` moves of each game has
+    // all its legal moves scored by a fixed-depth search; the game then continues with a random move
+    // scoring within `window` of the best, so different games explore different openings.
+    // Usage: java OthelloOpeningBook <output> [games] [plies] [depth] [window] [seed]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java OthelloOpeningBook <output> [games] [plies] [depth] [window] [seed]");
+            return;
+        }
+        Path output = Paths.get(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        int window = args.length > 4 ? Integer.parseInt(args[4]) : 150;
+        Random random = new Random(args.length > 5 ? Long.parseLong(args[5]) : 1);
+
+        OthelloAI ai = new OthelloAI(86_400_000L, 64, 1);
+        // normalized key -> (normalized move -> score)
+        TreeMap<Long, Map<Integer, Integer>> entries = new TreeMap<>(Long::compareUnsigned);
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            OthelloBoard board = new OthelloBoard();
+            for (int ply = 0; ply < plies && !board.isGameOver(); ply++) {
+                int player = board.getCurrentPlayer();
+                long own = board.getDiscs(player);
+                long opp = board.getDiscs(3 - player);
+                long legal = OthelloBoard.legalMoves(own, opp);
+                if (legal == 0) {
+                    board.pass();
+                    continue;
+                }
+                int symmetry = normalizingSymmetry(own, opp);
+                long key = OthelloBoard.hash(transform(own, symmetry), transform(opp, symmetry), 1);
+                Map<Integer, Integer> scores = entries.get(key);
+                if (scores == null) {
+                    scores = new TreeMap<>();
+                    for (long rest = legal; rest != 0; rest &= rest - 1) {
+                        int square = Long.numberOfTrailingZeros(rest);
+                        long flipped = OthelloBoard.flips(own, opp, square);
+                        int score = -score(ai, opp & ~flipped, own | flipped | (1L << square), 3 - player, depth - 1);
+                        scores.put(SYMMETRY_SQUARES[symmetry][square], score);
+                    }
+                    entries.put(key, scores);
+                }
+                int best = Integer.MIN_VALUE;
+                for (int score : scores.values()) {
+                    best = Math.max(best, score);
+                }
+                // Pick uniformly among the moves close enough to the best one
+                int candidates = 0;
+                int chosen = -1;
+                for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                    if (entry.getValue() >= best - window && random.nextInt(++candidates) == 0) {
+                        chosen = INVERSE_SQUARES[symmetry][entry.getKey()];
+                    }
+                }
+                board.play(chosen / 8, chosen % 8);
+            }
+            if ((game + 1) % 10 == 0 || game + 1 == games) {
+                System.out.printf("%d/%d games, %d positions, %.1f s%n",
+                        game + 1, games, entries.size(), (System.nanoTime() - start) / 1e9);
+            }
+        }
+        ai.shutdown();
+        write(output, entries);
+    }
+
+    // Search score of a position for the side to move, playing forced moves and passes through directly
+    private static int score(OthelloAI ai, long own, long opp, int player, int depth) {
+        long legal = OthelloBoard.legalMoves(own, opp);
+        if (legal == 0) {
+            if (OthelloBoard.legalMoves(opp, own) == 0) {
+                return OthelloAI.finalScore(own, opp);
+            }
+            return -score(ai, opp, own, 3 - player, depth);
+        }
+        if (depth <= 0) {
+            return OthelloAI.evaluate(own, opp);
+        }
+        if (Long.bitCount(legal) == 1) {
+            int square = Long.numberOfTrailingZeros(legal);
+            long flipped = OthelloBoard.flips(own, opp, square);
+            return -score(ai, opp & ~flipped, own | flipped | (1L << square), 3 - player, depth - 1);
+        }
+        ai.findBestMove(own, opp, player, depth);
+        return ai.getBestScore();
+    }
+
+    private static void write(Path output, TreeMap<Long, Map<Integer, Integer>> entries) throws IOException {
+        long count = 0;
+        for (Map<Integer, Integer> scores : entries.values()) {
+            count += scores.size();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(count);
+            for (Map.Entry<Long, Map<Integer, Integer>> entry : entries.entrySet()) {
+                for (Map.Entry<Integer, Integer> move : entry.getValue().entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeByte(move.getKey());
+                    out.writeByte(0);
+                    out.writeShort(clampScore(move.getValue()));
+                }
+            }
+        }
+        System.out.println("Wrote " + count + " book moves for " + entries.size() + " positions to " + output);
+    }
+
+    // Proven wins and losses are far outside the short range, keep their sign and order
+    private static int clampScore(int score) {
+        return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+    }
+}
@@ -0,0 +1,62 @@
+// Headless perft for the Othello move generator: counts the leaf nodes of the game tree
+// to a fixed depth from the start position and checks them against the published values.
+// A pass counts as a move, and a finished game counts as a leaf even before the depth is reached.
+public class OthelloPerft {
+    // Reference leaf counts for depths 1 to 14 from the standard start position
+    private static final long[] REFERENCE = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L,
+        212258800L, 1939886636L, 18429641748L, 184042084512L
+    };
+
+    public static long perft(OthelloBoard board, int depth) {
+        int player = board.getCurrentPlayer();
+        return perft(board.getDiscs(player), board.getDiscs(3 - player), depth, false);
+    }
+
+    public static long perft(long own, long opp, int depth, boolean passed) {
+        if (depth == 0) {
+            return 1;
+        }
+        long moves = OthelloBoard.legalMoves(own, opp);
+        if (moves == 0) {
+            if (passed) {
+                return 1; // neither side can move, the game is over
+            }
+            return perft(opp, own, depth - 1, true);
+        }
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+        long nodes = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flipped = OthelloBoard.flips(own, opp, square);
+            nodes += perft(opp & ~flipped, own | flipped | (1L << square), depth - 1, false);
+        }
+        return nodes;
+    }
+
+    public static long reference(int depth) {
+        return depth < REFERENCE.length ? REFERENCE[depth] : -1;
+    }
+
+    // Usage: java OthelloPerft [maxDepth]
+    // Exits with status 1 if any count differs from the reference.
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        boolean ok = true;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long nodes = perft(new OthelloBoard(), depth);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long expected = reference(depth);
+            String status = expected < 0 ? "no reference" : nodes == expected ? "ok" : "MISMATCH, expected " + expected;
+            ok &= expected < 0 || nodes == expected;
+            System.out.printf("depth %2d: %,15d nodes  %8.3f s  %,13.0f nodes/s  %s%n",
+                    depth, nodes, seconds, nodes / Math.max(seconds, 1e-9), status);
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
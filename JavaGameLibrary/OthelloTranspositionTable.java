@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+// Fixed-size transposition table for the Othello search, stored in two primitive arrays.
+// Entries live in buckets of four; a new result replaces the entry for the same position,
+// otherwise the shallowest entry left over from the oldest search.
+// The table is shared by all search threads without locking: each slot stores key ^ data next
+// to data, so a slot torn by two racing writers simply fails the key check on the next probe.
+// The table keeps no counters of its own; OthelloAI counts probes and hits per search thread.
+public class OthelloTranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+    public static final int NO_MOVE = 255;
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_BYTES = 16; // one long key + one long data word
+    // Data word layout: score (32) | age (8) | move (8) | depth (8) | bound (2) | used (1)
+    private static final long USED = 1L;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int age;
+
+    public OthelloTranspositionTable(int megabytes) {
+        long budget = Math.max(1, megabytes) * 1024L * 1024L / ENTRY_BYTES;
+        int entries = Integer.highestOneBit((int) Math.min(budget, 1 << 30));
+        entries = Math.max(entries, BUCKET_SIZE);
+        keys = new long[entries];
+        data = new long[entries];
+        bucketMask = entries / BUCKET_SIZE - 1;
+    }
+
+    // Start a new search; entries from earlier searches become preferred replacement victims
+    public void newSearch() {
+        age = (age + 1) & 0xff;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        age = 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    // Packed data word for the position, or 0 when it is not stored
+    public long probe(long key) {
+        int base = (int) (key & bucketMask) * BUCKET_SIZE;
+        for (int i = base; i < base + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    public void store(long key, int depth, int score, int bound, int move) {
+        int base = (int) (key & bucketMask) * BUCKET_SIZE;
+        int victim = base;
+        int victimValue = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if (entry == 0 || (keys[i] ^ entry) == key) {
+                // Keep a deeper result for the same position unless the new one is exact
+                if (entry != 0 && depth < depthOf(entry) && bound != EXACT) {
+                    return;
+                }
+                victim = i;
+                break;
+            }
+            // Prefer to overwrite shallow entries and entries left over from older searches
+            int staleness = (age - ageOf(entry)) & 0xff;
+            int value = depthOf(entry) - 4 * staleness;
+            if (value < victimValue) {
+                victimValue = value;
+                victim = i;
+            }
+        }
+        long entry = ((long) score << 32) | ((long) age << 24) | ((long) (move & 0xff) << 16)
+                | ((long) (depth & 0xff) << 8) | ((long) bound << 1) | USED;
+        keys[victim] = key ^ entry;
+        data[victim] = entry;
+    }
+
+    public static int scoreOf(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    public static int moveOf(long entry) {
+        return (int) (entry >>> 16) & 0xff;
+    }
+
+    public static int depthOf(long entry) {
+        return (int) (entry >>> 8) & 0xff;
+    }
+
+    public static int boundOf(long entry) {
+        return (int) (entry >>> 1) & 0x3;
+    }
+
+    private static int ageOf(long entry) {
+        return (int) (entry >>> 24) & 0xff;
+    }
+}